@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+# Measures time from JVM launch to the first successful GET /customers/{id} in each startup mode:
+#   default   the plain jar
+#   lazy      the startup profile (deferred OpenAPI and H2 console beans)
+#   aot       lazy plus the Spring AOT bean definitions (-Dspring.aot.enabled=true)
+#   cds       lazy plus an AppCDS archive recorded by a training run
+#   aot+cds   all of the above, with its own training run
+# Every mode runs the same extracted jar against the same seeded file database.
+#
+# Usage: scripts/startup-benchmark.sh   (RUNS=5 PORT=18080 SKIP_BUILD=1 to reuse target/*.jar)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+WORK=target/startup-benchmark
+DB=$PWD/$WORK/db/customerDb
+CUSTOMER_ID=00000000-0000-0000-0000-000000000001
+
+if [[ -z ${SKIP_BUILD:-} ]]; then
+    # Tests are not needed for the benchmark; AOT processing runs with the startup profile
+    ./mvnw -B -q -Pstartup -Dmaven.test.skip=true package
+fi
+
+rm -rf "$WORK"
+mkdir -p "$WORK"
+# CDS needs the classpath of plain jars that the extracted layout provides
+"$JAVA" -Djarmode=tools -jar target/CustomerManagementAPI-*.jar extract --destination "$WORK/app" > /dev/null
+APP_JAR=$(ls "$WORK"/app/*.jar)
+
+APP_ARGS=(
+    --server.port="$PORT"
+    --spring.datasource.url="jdbc:h2:file:$DB"
+    --spring.security.user.name=bench
+    --spring.security.user.password=bench
+    --logging.level.root=WARN
+)
+
+# Runs the application with the given JVM options and profile, prints the milliseconds until the customer
+# could be read, then stops it
+first_read_millis() {
+    local profile=$1
+    shift
+    local start end
+    start=$(date +%s%N)
+    "$JAVA" "$@" -jar "$APP_JAR" --spring.profiles.active="$profile" "${APP_ARGS[@]}" > "$WORK/app.log" 2>&1 &
+    local pid=$!
+    until [[ $(curl -s -o /dev/null -w '%{http_code}' -u bench:bench \
+            "http://localhost:$PORT/customers/$CUSTOMER_ID") == 200 ]]; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited before answering; see $WORK/app.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    end=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" || true
+    echo $(((end - start) / 1000000))
+}
+
+# Flyway creates the schema on a first start; the customer is then inserted directly
+"$JAVA" -Dspring.context.exit=onRefresh -jar "$APP_JAR" "${APP_ARGS[@]}" > "$WORK/app.log" 2>&1
+"$JAVA" -cp "$(ls "$WORK"/app/lib/h2-*.jar)" org.h2.tools.Shell -url "jdbc:h2:file:$DB" -user sa -password "" \
+    -sql "insert into customer (id, name, search_name, email, annual_spend, tier, version)
+          values ('$CUSTOMER_ID', 'Startup Benchmark', 'startup benchmark', 'startup@example.com', 100, 'SILVER', 0)" \
+    > /dev/null
+
+# Training runs cover startup and the first request; the archive is written when the JVM exits
+first_read_millis startup -XX:ArchiveClassesAtExit="$WORK/jit.jsa" > /dev/null
+first_read_millis startup -Dspring.aot.enabled=true -XX:ArchiveClassesAtExit="$WORK/aot.jsa" > /dev/null
+
+declare -A MODES=(
+    [default]="default|"
+    [lazy]="startup|"
+    [aot]="startup|-Dspring.aot.enabled=true"
+    [cds]="startup|-XX:SharedArchiveFile=$WORK/jit.jsa -Xshare:on"
+    [aot+cds]="startup|-Dspring.aot.enabled=true -XX:SharedArchiveFile=$WORK/aot.jsa -Xshare:on"
+)
+
+printf '\n%-10s %10s %10s %10s   (%d runs, ms to first GET /customers/{id})\n' mode median min max "$RUNS"
+for mode in default lazy aot cds aot+cds; do
+    IFS='|' read -r profile options <<< "${MODES[$mode]}"
+    samples=()
+    for ((run = 0; run < RUNS; run++)); do
+        # shellcheck disable=SC2086
+        samples+=("$(first_read_millis "$profile" $options)")
+    done
+    sorted=($(printf '%s\n' "${samples[@]}" | sort -n))
+    printf '%-10s %10d %10d %10d\n' "$mode" "${sorted[RUNS / 2]}" "${sorted[0]}" "${sorted[RUNS - 1]}"
+done
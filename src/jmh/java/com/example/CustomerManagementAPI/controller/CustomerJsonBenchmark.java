@@ -0,0 +1,105 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of customer lists, both as a single value (what a List response body does), element by
+ * element through one generator, and with CustomerJsonWriter over projections (what the streaming endpoint
+ * does). Output goes to a null stream so only serialization is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CustomerJsonBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    // Same defaults Spring Boot applies to the application's ObjectMapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private List<CustomerDTO> customers;
+    private List<CustomerRow> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        Tier[] tiers = Tier.values();
+        customers = new ArrayList<>(size);
+        rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CustomerDTO customer = new CustomerDTO();
+            customer.setId(UUID.randomUUID());
+            customer.setName("Customer " + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setAnnualSpend(BigDecimal.valueOf(random.nextInt(2_000_000), 2));
+            customer.setLastPurchaseDate(now.minusMinutes(random.nextInt(1_000_000)));
+            customer.setTier(tiers[random.nextInt(tiers.length)]);
+            customer.setVersion(0L);
+            customers.add(customer);
+            rows.add(new CustomerRow(customer.getId(), customer.getName(), customer.getEmail(),
+                    customer.getAnnualSpend(), customer.getLastPurchaseDate(), customer.getTier(), 0L));
+        }
+    }
+
+    @Benchmark
+    public void writeList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), customers);
+    }
+
+    @Benchmark
+    public void writeStreamed() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (CustomerDTO customer : customers) {
+                generator.writeObject(customer);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void writeDirect() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (CustomerRow row : rows) {
+                CustomerJsonWriter.write(generator, row);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+}
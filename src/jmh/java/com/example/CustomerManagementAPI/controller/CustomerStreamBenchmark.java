@@ -0,0 +1,144 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.CustomerManagementApiApplication;
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerBatchService;
+import com.example.CustomerManagementAPI.service.CustomerService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full export path of GET /customers, from the database to a null stream, per customer. Run with -prof gc:
+ * gc.alloc.rate.norm is then the bytes allocated per customer. entityToDto is the previous path (managed
+ * entity, CustomerDTO copy, Jackson bean serializer); projectionToWriter is the current one (record projection
+ * written by CustomerJsonWriter).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerStreamBenchmark {
+    private static final int CUSTOMER_COUNT = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CustomerManagementApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--customer.tier.recompute-interval=PT24H");
+        customerService = context.getBean(CustomerService.class);
+        entityManager = context.getBean(EntityManager.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<CustomerDTO> seed = new ArrayList<>(CUSTOMER_COUNT);
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            CustomerDTO customer = new CustomerDTO();
+            customer.setName("Customer " + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setAnnualSpend(BigDecimal.valueOf(random.nextInt(2_000_000), 2));
+            customer.setLastPurchaseDate(now.minusDays(random.nextInt(540)));
+            seed.add(customer);
+        }
+        context.getBean(CustomerBatchService.class).createCustomers(seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CUSTOMER_COUNT)
+    public void entityToDto() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Customer> customers = entityManager
+                        .createQuery("select c from Customer c order by c.id", Customer.class)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, CustomerRepository.STREAM_FETCH_SIZE)
+                        .getResultStream()) {
+                    customers.forEach(customer -> {
+                        CustomerDTO dto = new CustomerDTO();
+                        dto.setId(customer.getId());
+                        dto.setName(customer.getName());
+                        dto.setEmail(customer.getEmail());
+                        dto.setAnnualSpend(customer.getAnnualSpend());
+                        dto.setLastPurchaseDate(customer.getLastPurchaseDate());
+                        dto.setTier(customer.getTier());
+                        dto.setVersion(customer.getVersion());
+                        try {
+                            generator.writeObject(dto);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        entityManager.detach(customer);
+                    });
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CUSTOMER_COUNT)
+    public void projectionToWriter() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            customerService.streamAllCustomers(customer -> {
+                try {
+                    CustomerJsonWriter.write(generator, customer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost per customer of the GET /customers wire formats: JSON (the default), CBOR and Smile.
+ * Encoding goes through CustomerJsonWriter, as the endpoint does; decoding reads the list back into CustomerDTOs
+ * the way a Jackson-based consumer would. The payload size per customer is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerWireFormatBenchmark {
+    private static final int CUSTOMER_COUNT = 10_000;
+    private static final TypeReference<List<CustomerDTO>> CUSTOMER_LIST = new TypeReference<>() {};
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private List<CustomerRow> rows;
+    private ByteArrayOutputStream buffer;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            // Same defaults Spring Boot applies to the application's ObjectMapper
+            case "json" -> Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException(format);
+        };
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        Tier[] tiers = Tier.values();
+        rows = new ArrayList<>(CUSTOMER_COUNT);
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            rows.add(new CustomerRow(UUID.randomUUID(), "Customer " + i, "customer" + i + "@example.com",
+                    BigDecimal.valueOf(random.nextInt(2_000_000), 2), now.minusMinutes(random.nextInt(1_000_000)),
+                    tiers[random.nextInt(tiers.length)], (long) random.nextInt(10)));
+        }
+        buffer = new ByteArrayOutputStream(CUSTOMER_COUNT * 256);
+        encodeList();
+        payload = buffer.toByteArray();
+        System.out.printf("%n%s: %.1f bytes per customer%n", format, (double) payload.length / CUSTOMER_COUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CUSTOMER_COUNT)
+    public int encodeList() throws IOException {
+        buffer.reset();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer)) {
+            generator.writeStartArray();
+            for (CustomerRow row : rows) {
+                CustomerJsonWriter.write(generator, row);
+            }
+            generator.writeEndArray();
+        }
+        return buffer.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CUSTOMER_COUNT)
+    public List<CustomerDTO> decodeList() throws IOException {
+        return mapper.readValue(payload, CUSTOMER_LIST);
+    }
+
+}
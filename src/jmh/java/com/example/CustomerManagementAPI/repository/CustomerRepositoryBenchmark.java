@@ -0,0 +1,113 @@
+package com.example.CustomerManagementAPI.repository;
+
+import com.example.CustomerManagementAPI.CustomerManagementApiApplication;
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.service.CustomerBatchService;
+import com.example.CustomerManagementAPI.service.CustomerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths against the in-memory H2 database, through the real Spring context (without the web layer).
+ * Lookups go to the repository directly so the customer cache does not hide the database cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerRepositoryBenchmark {
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Carol", "David", "Erin", "Frank", "Grace", "Heidi"};
+    private static final String[] LAST_NAMES = {"Anderson", "Brown", "Clark", "Davis", "Evans", "Garcia", "Harris"};
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000"})
+    private int customerCount;
+
+    private ConfigurableApplicationContext context;
+    private CustomerRepository customerRepository;
+    private CustomerService customerService;
+    private List<Customer> customers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CustomerManagementApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--customer.tier.recompute-interval=PT24H");
+        customerRepository = context.getBean(CustomerRepository.class);
+        customerService = context.getBean(CustomerService.class);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<CustomerDTO> seed = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            CustomerDTO customer = new CustomerDTO();
+            customer.setName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setAnnualSpend(BigDecimal.valueOf(random.nextInt(20_000)));
+            customer.setLastPurchaseDate(now.minusDays(random.nextInt(540)));
+            seed.add(customer);
+        }
+        context.getBean(CustomerBatchService.class).createCustomers(seed);
+        customers = customerRepository.findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Customer randomCustomer() {
+        return customers.get(ThreadLocalRandom.current().nextInt(customers.size()));
+    }
+
+    @Benchmark
+    public Optional<Customer> findById() {
+        return customerRepository.findById(randomCustomer().getId());
+    }
+
+    @Benchmark
+    public Optional<Customer> findByEmail() {
+        return customerRepository.findByEmail(randomCustomer().getEmail());
+    }
+
+    @Benchmark
+    public List<Customer> firstPage() {
+        return customerRepository.findAllByOrderByIdAsc(Limit.of(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<CustomerDTO> searchByName() {
+        return customerService.getCustomersByName("ce har", CustomerService.DEFAULT_SEARCH_LIMIT);
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.metrics.CustomerMetrics;
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.Tier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of tier calculation and entity-to-DTO mapping, over a mix of customers that covers every tier
+ * branch including missing spend or purchase date.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerServiceBenchmark {
+    private static final int CUSTOMER_COUNT = 1024;
+
+    private final CustomerService customerService = new CustomerService(null, null, null, null,
+            new CustomerMetrics(new SimpleMeterRegistry()));
+    private final Customer[] customers = new Customer[CUSTOMER_COUNT];
+    private LocalDateTime now;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        now = LocalDateTime.now();
+        for (int i = 0; i < CUSTOMER_COUNT; i++) {
+            Customer customer = new Customer();
+            customer.setId(UUID.randomUUID());
+            customer.setName("Customer " + i);
+            customer.setEmail("customer" + i + "@example.com");
+            if (i % 16 != 0) {
+                customer.setAnnualSpend(BigDecimal.valueOf(random.nextInt(20_000)));
+                customer.setLastPurchaseDate(now.minusDays(random.nextInt(540)));
+            }
+            customer.setTier(Tier.SILVER);
+            customers[i] = customer;
+        }
+    }
+
+    private Customer nextCustomer() {
+        next = (next + 1) & (CUSTOMER_COUNT - 1);
+        return customers[next];
+    }
+
+    @Benchmark
+    public Tier calculateTier() {
+        return customerService.calculateTier(nextCustomer(), now);
+    }
+
+    @Benchmark
+    public CustomerDTO convertToDTO() {
+        return customerService.convertToDTO(nextCustomer());
+    }
+
+}
@@ -2,12 +2,19 @@ package com.example.CustomerManagementAPI;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CustomerManagementApiApplication {
+	private static final int STARTUP_STEP_CAPACITY = 10_000;
 
 	public static void main(String[] args) {
-		SpringApplication.run(CustomerManagementApiApplication.class, args);
+		SpringApplication application = new SpringApplication(CustomerManagementApiApplication.class);
+		// Recorded steps feed StartupTimingReport and the actuator startup endpoint
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+		application.run(args);
 	}
 
 }
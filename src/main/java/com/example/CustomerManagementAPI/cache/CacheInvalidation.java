@@ -0,0 +1,11 @@
+package com.example.CustomerManagementAPI.cache;
+
+import java.util.UUID;
+
+/**
+ * Tells the other nodes' caches that a customer changed. version is the one the change wrote, DELETED for a
+ * removal, or null when unknown; origin is the node id of the sender.
+ */
+public record CacheInvalidation(String origin, UUID id, Long version) {
+    public static final long DELETED = Long.MAX_VALUE;
+}
@@ -0,0 +1,222 @@
+package com.example.CustomerManagementAPI.cache;
+
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import com.example.CustomerManagementAPI.service.CustomerService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of CustomerDTOs keyed by id, with a secondary email index. Entries expire after
+ * the configured TTL or at the moment their stored tier would lapse, whichever comes first.
+ * Cached instances are shared between callers and must be treated as read-only.
+ * <p>
+ * Each node keeps its own cache; committed changes are broadcast over the InvalidationTransport so the other nodes
+ * drop their copies. A deployment with several nodes defines an InvalidationTransport bean over its message broker
+ * (Redis pub/sub, Kafka, JMS, ...); without one the in-process transport is used. An invalidation that carries the
+ * written version only evicts entries older than it and leaves a version floor behind, so a reordered message
+ * cannot evict a newer entry and a load that read the old row cannot put it back. Should the transport lose a
+ * message, the TTL bounds how long a node serves it.
+ */
+@Component
+public class CustomerCache implements SmartLifecycle {
+    private final Cache<UUID, CustomerDTO> customers;
+    private final ConcurrentHashMap<String, UUID> idsByEmail = new ConcurrentHashMap<>();
+    // Lowest version each recently changed customer may still be cached with; outlives any in-flight load
+    private final Cache<UUID, Long> versionFloors;
+    private final InvalidationTransport invalidationTransport;
+    private final String nodeId;
+
+    // Bumped on every invalidation of unknown version; a load that raced with it must not repopulate the cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile Runnable unsubscribe;
+
+    // Counted here rather than by Caffeine so that email lookups missing the index are included
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public CustomerCache(@Value("${customer.cache.maximum-size:100000}") long maximumSize,
+                         @Value("${customer.cache.ttl:PT10M}") Duration ttl,
+                         @Value("${customer.cache.invalidation.floor-ttl:PT1M}") Duration floorTtl,
+                         ObjectProvider<InvalidationTransport> invalidationTransport,
+                         @Value("${customer.cache.invalidation.channel:customers}") String channel,
+                         @Value("${customer.cache.node-id:}") String nodeId) {
+        this(maximumSize, ttl, floorTtl,
+                invalidationTransport.getIfAvailable(() -> new InProcessInvalidationTransport(channel)), nodeId);
+    }
+
+    CustomerCache(long maximumSize, Duration ttl, Duration floorTtl, InvalidationTransport invalidationTransport,
+                  String nodeId) {
+        this.customers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TierAwareExpiry(ttl.toNanos()))
+                .removalListener((UUID id, CustomerDTO customerDTO, RemovalCause cause) -> {
+                    if (id != null && customerDTO != null && customerDTO.getEmail() != null) {
+                        idsByEmail.remove(customerDTO.getEmail(), id);
+                    }
+                })
+                .recordStats()
+                .build();
+        this.versionFloors = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(floorTtl)
+                .build();
+        this.invalidationTransport = invalidationTransport;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    public CustomerDTO get(UUID id) {
+        return record(customers.getIfPresent(id));
+    }
+
+    public CustomerDTO getByEmail(String email) {
+        UUID id = idsByEmail.get(email);
+        CustomerDTO customerDTO = id == null ? null : customers.getIfPresent(id);
+        return record(customerDTO != null && email.equals(customerDTO.getEmail()) ? customerDTO : null);
+    }
+
+    private CustomerDTO record(CustomerDTO customerDTO) {
+        (customerDTO == null ? misses : hits).increment();
+        return customerDTO;
+    }
+
+    // Take a stamp before loading from the database and hand it back to put()
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public void put(CustomerDTO customerDTO, long stamp) {
+        if (invalidations.get() != stamp || isSuperseded(customerDTO)) {
+            return;
+        }
+        customers.put(customerDTO.getId(), customerDTO);
+        if (customerDTO.getEmail() != null) {
+            idsByEmail.put(customerDTO.getEmail(), customerDTO.getId());
+        }
+        // An invalidation may have slipped in between the check and the put
+        if (invalidations.get() != stamp || isSuperseded(customerDTO)) {
+            customers.invalidate(customerDTO.getId());
+        }
+    }
+
+    private boolean isSuperseded(CustomerDTO customerDTO) {
+        Long floor = versionFloors.getIfPresent(customerDTO.getId());
+        return floor != null && (customerDTO.getVersion() == null || customerDTO.getVersion() < floor);
+    }
+
+    public void invalidate(UUID id) {
+        invalidations.incrementAndGet();
+        customers.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        customers.invalidateAll();
+        idsByEmail.clear();
+    }
+
+    // Applies a change committed on this node and broadcasts it to the others
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        Long version = event.type() == ChangeType.DELETED ? CacheInvalidation.DELETED : event.version();
+        CacheInvalidation invalidation = new CacheInvalidation(nodeId, event.id(), version);
+        apply(invalidation);
+        invalidationTransport.publish(invalidation);
+    }
+
+    void apply(CacheInvalidation invalidation) {
+        if (invalidation.version() == null) {
+            invalidate(invalidation.id());
+            return;
+        }
+        long version = invalidation.version();
+        versionFloors.asMap().merge(invalidation.id(), version, Math::max);
+        customers.asMap().computeIfPresent(invalidation.id(),
+                (id, cached) -> cached.getVersion() != null && cached.getVersion() >= version ? cached : null);
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (!nodeId.equals(invalidation.origin())) {
+            apply(invalidation);
+        }
+    }
+
+    public CustomerCacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        double hitRate = requests == 0 ? 1.0 : (double) hitCount / requests;
+        return new CustomerCacheStats(hitCount, missCount, hitRate, 1.0 - hitRate,
+                customers.stats().evictionCount(), customers.estimatedSize());
+    }
+
+    @Override
+    public void start() {
+        unsubscribe = invalidationTransport.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public void stop() {
+        unsubscribe.run();
+        unsubscribe = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return unsubscribe != null;
+    }
+
+    private static final class TierAwareExpiry implements Expiry<UUID, CustomerDTO> {
+        private final long ttlNanos;
+
+        private TierAwareExpiry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(UUID id, CustomerDTO customerDTO, long currentTime) {
+            LocalDateTime lastPurchaseDate = customerDTO.getLastPurchaseDate();
+            if (customerDTO.getTier() == null || lastPurchaseDate == null) {
+                return ttlNanos;
+            }
+            LocalDateTime lapsesAt = switch (customerDTO.getTier()) {
+                case PLATINUM -> lastPurchaseDate.plusMonths(CustomerService.PLATINUM_WINDOW_MONTHS);
+                case GOLD -> lastPurchaseDate.plusMonths(CustomerService.GOLD_WINDOW_MONTHS);
+                case SILVER -> null;
+            };
+            if (lapsesAt == null) {
+                return ttlNanos;
+            }
+            long untilLapse = Duration.between(LocalDateTime.now(), lapsesAt).toNanos();
+            return Math.clamp(untilLapse, 0, ttlNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID id, CustomerDTO customerDTO, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, customerDTO, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(UUID id, CustomerDTO customerDTO, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.CustomerManagementAPI.cache;
+
+public record CustomerCacheStats(long hits, long misses, double hitRate, double missRate, long evictions, long size) {
+}
@@ -0,0 +1,66 @@
+package com.example.CustomerManagementAPI.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Transport between application contexts in the same JVM, for a single node and for tests that run several
+ * nodes side by side. Transports created with the same channel name reach each other's subscribers. Each
+ * subscriber is fed by its own virtual thread, so a slow listener neither delays the publisher nor the others.
+ */
+@Slf4j
+public class InProcessInvalidationTransport implements InvalidationTransport {
+    private static final ConcurrentHashMap<String, Set<Subscription>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final Set<Subscription> subscriptions;
+
+    public InProcessInvalidationTransport(String channel) {
+        this.subscriptions = CHANNELS.computeIfAbsent(channel, name -> ConcurrentHashMap.newKeySet());
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        subscriptions.forEach(subscription -> subscription.deliver(invalidation));
+    }
+
+    @Override
+    public Runnable subscribe(Consumer<CacheInvalidation> listener) {
+        Subscription subscription = new Subscription(listener);
+        subscriptions.add(subscription);
+        return () -> {
+            subscriptions.remove(subscription);
+            subscription.executor.shutdown();
+        };
+    }
+
+    private static final class Subscription {
+        private final Consumer<CacheInvalidation> listener;
+        // One thread per subscriber keeps each publisher's messages in order
+        private final ExecutorService executor =
+                Executors.newSingleThreadExecutor(Thread.ofVirtual().name("cache-invalidation").factory());
+
+        private Subscription(Consumer<CacheInvalidation> listener) {
+            this.listener = listener;
+        }
+
+        private void deliver(CacheInvalidation invalidation) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        listener.accept(invalidation);
+                    } catch (RuntimeException e) {
+                        log.warn("Cache invalidation listener failed for customer {}", invalidation.id(), e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Unsubscribed concurrently
+            }
+        }
+    }
+}
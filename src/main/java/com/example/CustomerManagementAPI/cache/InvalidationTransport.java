@@ -0,0 +1,16 @@
+package com.example.CustomerManagementAPI.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Channel that carries cache invalidations between the nodes of a deployment. Delivery is at most once and
+ * asynchronous; messages from one publisher must reach each subscriber in publish order, but messages from
+ * different publishers may interleave arbitrarily. Every subscriber receives every message, its own included.
+ */
+public interface InvalidationTransport {
+
+    void publish(CacheInvalidation invalidation);
+
+    // Returns a handle that ends the subscription
+    Runnable subscribe(Consumer<CacheInvalidation> listener);
+}
@@ -0,0 +1,233 @@
+package com.example.CustomerManagementAPI.controller;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Tomcat only honours server.compression.min-response-size when the Content-Length is known, and the JSON
+ * message converters never set one, so every body would be compressed however small. This filter holds a
+ * body back until it exceeds the threshold: a body that completes below it is sent with its length and goes
+ * out uncompressed. Larger bodies, and streamed (asynchronous) responses, pass through as they are written.
+ */
+@Component
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+    private final int threshold;
+
+    @Autowired
+    public CompressionThresholdFilter(@Value("${server.compression.min-response-size:2KB}") DataSize threshold) {
+        this.threshold = (int) threshold.toBytes();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (request.getHeader(HttpHeaders.ACCEPT_ENCODING) == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ThresholdResponse thresholdResponse = new ThresholdResponse(response, threshold);
+        AsyncAwareRequest asyncAwareRequest = new AsyncAwareRequest(request, thresholdResponse);
+        filterChain.doFilter(asyncAwareRequest, thresholdResponse);
+        // An asynchronous response is still being written by another thread and was already released
+        if (!asyncAwareRequest.isAsyncStarted()) {
+            thresholdResponse.complete();
+        }
+    }
+
+    // Stops buffering before any asynchronous writer can touch the response
+    private static final class AsyncAwareRequest extends HttpServletRequestWrapper {
+        private final ThresholdResponse response;
+
+        private AsyncAwareRequest(HttpServletRequest request, ThresholdResponse response) {
+            super(request);
+            this.response = response;
+        }
+
+        @Override
+        public AsyncContext startAsync() throws IllegalStateException {
+            release();
+            return super.startAsync();
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse)
+                throws IllegalStateException {
+            release();
+            return super.startAsync(servletRequest, servletResponse);
+        }
+
+        private void release() {
+            try {
+                response.passThrough();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class ThresholdResponse extends HttpServletResponseWrapper {
+        private final int threshold;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private ThresholdResponse(HttpServletResponse response, int threshold) {
+            super(response);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ThresholdOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (buffer == null) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (buffer != null) {
+                buffer.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (buffer != null) {
+                buffer.reset();
+            }
+        }
+
+        // The body is complete: whatever is still held back is below the threshold and is sent with its length
+        void complete() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (buffer != null && buffer.size() > 0 && !isCommitted()) {
+                setContentLength(buffer.size());
+            }
+            release();
+        }
+
+        void passThrough() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            release();
+        }
+
+        // From here on writes go straight to the response
+        private void release() throws IOException {
+            if (buffer == null) {
+                return;
+            }
+            ByteArrayOutputStream held = buffer;
+            buffer = null;
+            if (held.size() > 0) {
+                held.writeTo(super.getOutputStream());
+            }
+        }
+
+        private final class ThresholdOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                if (buffer == null) {
+                    ThresholdResponse.super.getOutputStream().write(b);
+                    return;
+                }
+                buffer.write(b);
+                if (buffer.size() > threshold) {
+                    release();
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (buffer == null) {
+                    ThresholdResponse.super.getOutputStream().write(b, off, len);
+                    return;
+                }
+                buffer.write(b, off, len);
+                if (buffer.size() > threshold) {
+                    release();
+                }
+            }
+
+            // Flushing while buffering would commit the response without a length
+            @Override
+            public void flush() throws IOException {
+                if (buffer == null) {
+                    ThresholdResponse.super.getOutputStream().flush();
+                }
+            }
+
+            // Writes into the buffer never block
+            @Override
+            public boolean isReady() {
+                if (buffer != null) {
+                    return true;
+                }
+                try {
+                    return ThresholdResponse.super.getOutputStream().isReady();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // A non-blocking writer gets the response stream itself, after what was held back so far
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    release();
+                    ThresholdResponse.super.getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.SpendAnalytics;
+import com.example.CustomerManagementAPI.service.CustomerAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/customers/analytics")
+public class CustomerAnalyticsController {
+    private final CustomerAnalyticsService customerAnalyticsService;
+
+    @Autowired
+    public CustomerAnalyticsController(CustomerAnalyticsService customerAnalyticsService) {
+        this.customerAnalyticsService = customerAnalyticsService;
+    }
+
+    @Operation(summary = "Get annual spend aggregates",
+            description = "Customer count, total, mean and 50th/90th/99th percentile annual spend, by tier and by "
+                    + "month of the last purchase. Spend figures cover the customers that have an annual spend")
+    @ApiResponse(responseCode = "200", description = "Spend aggregates",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = SpendAnalytics.class))})
+    @GetMapping
+    public ResponseEntity<SpendAnalytics> getSpendAnalytics() {
+        return ResponseEntity.ok(customerAnalyticsService.getSpendAnalytics());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.CustomerChangeBatch;
+import com.example.CustomerManagementAPI.service.CustomerChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/customers/changes")
+public class CustomerChangeController {
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final CustomerChangeFeed customerChangeFeed;
+
+    @Autowired
+    public CustomerChangeController(CustomerChangeFeed customerChangeFeed) {
+        this.customerChangeFeed = customerChangeFeed;
+    }
+
+    @Operation(summary = "Get customer changes after a sequence number",
+            description = "Changes in commit order; pass the returned next as since to continue. Without since, "
+                    + "returns no changes and the current position, to follow after a full read of the customers. "
+                    + "With wait, an empty result is held back until a change commits or the wait has passed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch of changes, possibly empty",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CustomerChangeBatch.class))}),
+            @ApiResponse(responseCode = "400", description = "Negative since",
+                    content = @Content),
+            @ApiResponse(responseCode = "410", description = "Changes after since are no longer retained; resync",
+                    content = @Content)})
+    @GetMapping
+    public CompletableFuture<ResponseEntity<CustomerChangeBatch>> getChanges(
+            @Parameter(description = "Sequence number of the last change already applied") @RequestParam(required = false) Long since,
+            @Parameter(description = "Maximum number of changes to return") @RequestParam(defaultValue = "1000") int limit,
+            @Parameter(description = "Seconds to wait for a change when there is none yet") @RequestParam(defaultValue = "0") int wait) {
+        if (since == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.ok(new CustomerChangeBatch(List.of(), customerChangeFeed.head())));
+        }
+        try {
+            return customerChangeFeed.poll(since, limit, Duration.ofSeconds(wait))
+                    .thenApply(batch -> batch
+                            .map(ResponseEntity::ok)
+                            .orElse(ResponseEntity.status(HttpStatus.GONE).build()));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+    }
+
+    @Operation(summary = "Stream customer changes as server-sent events",
+            description = "Each event carries a batch of changes as a JSON array, with the last sequence number as "
+                    + "its id, so a reconnecting client resumes through Last-Event-ID. Starts at the current "
+                    + "position when neither is given. A gone event ends a stream whose position is no longer "
+                    + "retained")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream of change batches",
+                    content = {@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "Negative since",
+                    content = @Content)})
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @Parameter(description = "Sequence number of the last change already applied") @RequestParam(required = false) Long since,
+            @Parameter(description = "Maximum number of changes per event") @RequestParam(defaultValue = "1000") int limit,
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        long position = lastEventId != null ? lastEventId : since != null ? since : customerChangeFeed.head();
+        if (position < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Times out with spring.mvc.async.request-timeout; the client then reconnects with Last-Event-ID
+        SseEmitter emitter = new SseEmitter();
+        Runnable cancel = customerChangeFeed.subscribe(position, limit, new EmitterSubscriber(emitter));
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+        return ResponseEntity.ok(emitter);
+    }
+
+    private record EmitterSubscriber(SseEmitter emitter) implements CustomerChangeFeed.Subscriber {
+
+        @Override
+        public void changes(CustomerChangeBatch batch) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(batch.next()))
+                    .name("changes")
+                    .data(batch.changes(), MediaType.APPLICATION_JSON));
+        }
+
+        // Comment lines keep proxies from closing an idle stream and reveal clients that went away
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void gone() {
+            try {
+                emitter.send(SseEmitter.event().name("gone").data(""));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+
+        @Override
+        public void failed(Exception e) {
+            emitter.completeWithError(e);
+        }
+    }
+}
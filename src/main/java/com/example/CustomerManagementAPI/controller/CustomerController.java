@@ -1,32 +1,72 @@
 package com.example.CustomerManagementAPI.controller;
 
+import com.example.CustomerManagementAPI.cache.CustomerCacheStats;
+import com.example.CustomerManagementAPI.model.BatchItemResult;
 import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.CustomerPage;
+import com.example.CustomerManagementAPI.model.CustomerPatch;
+import com.example.CustomerManagementAPI.model.PurchaseEvent;
+import com.example.CustomerManagementAPI.model.PurchaseIngestResult;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.service.CustomerBatchService;
 import com.example.CustomerManagementAPI.service.CustomerService;
+import com.example.CustomerManagementAPI.service.PurchaseAggregator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/customers")
 public class CustomerController {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+    private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+    private static final List<MediaType> STREAM_TYPES =
+            List.of(MediaType.APPLICATION_JSON, APPLICATION_NDJSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
 
     private final CustomerService customerService;
+    private final CustomerBatchService customerBatchService;
+    private final PurchaseAggregator purchaseAggregator;
+    private final ObjectMapper objectMapper;
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final SmileFactory smileFactory = new SmileFactory();
 
     @Autowired
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, CustomerBatchService customerBatchService,
+                              PurchaseAggregator purchaseAggregator, ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.customerBatchService = customerBatchService;
+        this.purchaseAggregator = purchaseAggregator;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Create a new customer")
@@ -35,6 +75,8 @@ public class CustomerController {
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = CustomerDTO.class))}),
             @ApiResponse(responseCode = "400", description = "Invalid input",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Email already in use",
                     content = @Content)})
     @PostMapping
     public ResponseEntity<CustomerDTO> createCustomer(@RequestBody CustomerDTO customerDTO) {
@@ -46,67 +88,236 @@ public class CustomerController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdCustomerDTO);
     }
 
-    @Operation(summary = "Get all customers")
+    @Operation(summary = "Get all customers",
+            description = "Streams every customer in id order, as a JSON array, or as NDJSON, CBOR or Smile when "
+                    + "requested via Accept. The binary formats carry ids as 16 raw bytes and purchase dates as "
+                    + "numeric arrays, and are meant for internal consumers")
     @ApiResponse(responseCode = "200", description = "List of all customers",
             content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = CustomerDTO.class))})
-    @GetMapping
-    public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
-        List<CustomerDTO> customersDTO = customerService.getAllCustomers();
-        return ResponseEntity.ok(customersDTO);
+                    schema = @Schema(implementation = CustomerDTO.class)),
+                    @Content(mediaType = APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = CustomerDTO.class)),
+                    @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                            schema = @Schema(implementation = CustomerDTO.class)),
+                    @Content(mediaType = APPLICATION_SMILE_VALUE,
+                            schema = @Schema(implementation = CustomerDTO.class))})
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> getAllCustomers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType contentType = streamContentType(accept);
+        boolean ndjson = APPLICATION_NDJSON.equals(contentType);
+        JsonFactory factory = streamFactory(contentType);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = factory.createGenerator(outputStream)) {
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                customerService.streamAllCustomers(customer -> {
+                    try {
+                        CustomerJsonWriter.write(generator, customer);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(body);
     }
 
-    @Operation(summary = "Get a customer by ID")
+    // Highest q-value first, the more specific type on a tie; q=0 refuses a type even when a wildcard allows it
+    static MediaType streamContentType(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> requested;
+        try {
+            requested = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(requested);
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> refused = requested.stream().filter(type -> type.getQualityValue() == 0).toList();
+        for (MediaType type : requested) {
+            if (type.getQualityValue() == 0) {
+                break;
+            }
+            for (MediaType supported : STREAM_TYPES) {
+                if (type.includes(supported) && refused.stream().noneMatch(r -> r.includes(supported))) {
+                    return supported;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private JsonFactory streamFactory(MediaType contentType) {
+        if (MediaType.APPLICATION_CBOR.equals(contentType)) {
+            return cborFactory;
+        } else if (APPLICATION_SMILE.equals(contentType)) {
+            return smileFactory;
+        }
+        return objectMapper.getFactory();
+    }
+
+    @Operation(summary = "Get a page of customers",
+            description = "Keyset pagination in id order; pass the returned nextCursor to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of customers",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CustomerPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor",
+                    content = @Content)})
+    @GetMapping(params = {"limit", "!tier", "!name", "!email"})
+    public ResponseEntity<CustomerPage> getCustomersPage(
+            @Parameter(description = "Maximum number of customers to return") @RequestParam int limit,
+            @Parameter(description = "Continuation token from a previous page") @RequestParam(required = false) String cursor) {
+        try {
+            return ResponseEntity.ok(customerService.getCustomersPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Get customers by tier",
+            description = "Keyset pagination in id order within a tier; pass the returned nextCursor to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of customers in the tier",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CustomerPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid tier or cursor",
+                    content = @Content)})
+    @GetMapping(params = {"tier", "!name", "!email"})
+    public ResponseEntity<CustomerPage> getCustomersByTier(
+            @Parameter(description = "Tier to filter by") @RequestParam Tier tier,
+            @Parameter(description = "Maximum number of customers to return") @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "Continuation token from a previous page") @RequestParam(required = false) String cursor) {
+        try {
+            return ResponseEntity.ok(customerService.getCustomersByTier(tier, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Count customers per tier")
+    @ApiResponse(responseCode = "200", description = "Number of customers in each tier",
+            content = {@Content(mediaType = "application/json")})
+    @GetMapping("/tier-counts")
+    public ResponseEntity<Map<Tier, Long>> getTierCounts() {
+        return ResponseEntity.ok(customerService.getTierCounts());
+    }
+
+    @Operation(summary = "Get customer cache statistics",
+            description = "Hit and miss counts and rates of the id and email lookup cache")
+    @ApiResponse(responseCode = "200", description = "Cache statistics",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CustomerCacheStats.class))})
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CustomerCacheStats> getCacheStats() {
+        return ResponseEntity.ok(customerService.getCacheStats());
+    }
+
+    @Operation(summary = "Get a customer by ID",
+            description = "The response carries the customer's version as ETag; send it back in If-None-Match "
+                    + "to get a 304 while the customer is unchanged")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found the customer",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = CustomerDTO.class))}),
+            @ApiResponse(responseCode = "304", description = "Customer unchanged since the given ETag",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Customer not found",
                     content = @Content)})
     @GetMapping("/{id}")
     public ResponseEntity<CustomerDTO> getCustomerById(
-            @Parameter(description = "ID of the customer to be retrieved") @PathVariable UUID id) {
+            @Parameter(description = "ID of the customer to be retrieved") @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Conditional requests are answered from the version alone, before any DTO is built or serialized
+        if (ifNoneMatch != null) {
+            Optional<Long> version = customerService.getCustomerVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = CustomerETags.forVersion(version.get());
+            if (CustomerETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         return customerService.getCustomerById(id)
-                .map(ResponseEntity::ok)
+                .map(customerDTO -> ResponseEntity.ok()
+                        .eTag(CustomerETags.forVersion(customerDTO.getVersion()))
+                        .body(customerDTO))
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get customers by name")
-    @ApiResponse(responseCode = "200", description = "Found customers",
-            content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = CustomerDTO.class))})
-    @GetMapping(params = "name")
+    @Operation(summary = "Get customers by name",
+            description = "Case-insensitive substring search; prefix matches and shorter names rank first. "
+                    + "The ETag covers the ids and versions of the results; If-None-Match returns 304 while they are unchanged")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found customers",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CustomerDTO.class))}),
+            @ApiResponse(responseCode = "304", description = "Results unchanged since the given ETag",
+                    content = @Content)})
+    @GetMapping(params = {"name", "!email"})
     public ResponseEntity<List<CustomerDTO>> getCustomersByName(
-            @Parameter(description = "Name to search for") @RequestParam(required = false) String name) {
+            @Parameter(description = "Name to search for") @RequestParam(required = false) String name,
+            @Parameter(description = "Maximum number of customers to return") @RequestParam(defaultValue = "" + CustomerService.DEFAULT_SEARCH_LIMIT) int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (name != null) {
-            return ResponseEntity.ok(customerService.getCustomersByName(name));
+            return conditionalList(customerService.getCustomersByName(name, limit), ifNoneMatch);
         } else {
             return ResponseEntity.badRequest().build();
         }
     }
 
-    @Operation(summary = "Get customers by email")
-    @ApiResponse(responseCode = "200", description = "Found customers",
-            content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = CustomerDTO.class))})
+    @Operation(summary = "Get customers by email",
+            description = "The ETag covers the id and version of the result; If-None-Match returns 304 while it is unchanged")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found customers",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CustomerDTO.class))}),
+            @ApiResponse(responseCode = "304", description = "Result unchanged since the given ETag",
+                    content = @Content)})
     @GetMapping(params = "email")
     public ResponseEntity<List<CustomerDTO>> getCustomersByEmail(
-            @Parameter(description = "Email to search for") @RequestParam(required = false) String email) {
+            @Parameter(description = "Email to search for") @RequestParam(required = false) String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (email != null) {
-            return customerService.getCustomerByEmail(email)
-                    .map(customerDTO -> ResponseEntity.ok(List.of(customerDTO)))
-                    .orElse(ResponseEntity.ok(List.of()));
+            List<CustomerDTO> customers = customerService.getCustomerByEmail(email)
+                    .map(List::of)
+                    .orElse(List.of());
+            return conditionalList(customers, ifNoneMatch);
         } else {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Skips serialization when the client already holds the same results
+    private static ResponseEntity<List<CustomerDTO>> conditionalList(List<CustomerDTO> customers, String ifNoneMatch) {
+        String etag = CustomerETags.forCustomers(customers);
+        if (CustomerETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(customers);
+    }
+
     @Operation(summary = "Update a customer")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Customer updated",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = CustomerDTO.class))}),
             @ApiResponse(responseCode = "404", description = "Customer not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Email already in use or concurrent update",
                     content = @Content)})
     @PutMapping("/{id}")
     public ResponseEntity<Optional<CustomerDTO>> updateCustomer(
@@ -115,11 +326,49 @@ public class CustomerController {
         try {
             Optional<CustomerDTO> updatedCustomer = customerService.updateCustomer(id, customerDetails);
             return ResponseEntity.ok(updatedCustomer);
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @Operation(summary = "Partially update a customer",
+            description = "Only the fields present in the body are written, in a single UPDATE that also recomputes "
+                    + "the tier. The update only applies to the version it was based on, sent as the version field "
+                    + "or as the customer's ETag in If-Match.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Customer updated"),
+            @ApiResponse(responseCode = "400", description = "Invalid field value"),
+            @ApiResponse(responseCode = "404", description = "Customer not found"),
+            @ApiResponse(responseCode = "409", description = "Version is stale or email already in use"),
+            @ApiResponse(responseCode = "412", description = "If-Match does not name the current version"),
+            @ApiResponse(responseCode = "428", description = "Neither a version nor If-Match was sent")})
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchCustomer(
+            @Parameter(description = "ID of the customer to be updated") @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody CustomerPatch patch) {
+        Long version = patch.getVersion();
+        if (ifMatch != null) {
+            Long tagged = CustomerETags.versionOf(ifMatch);
+            if (tagged == null || (version != null && !version.equals(tagged))) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            version = tagged;
+        }
+        if (version == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        try {
+            return customerService.patchCustomer(id, patch, version)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+        }
+    }
+
     @Operation(summary = "Delete a customer")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Customer deleted"),
@@ -130,4 +379,74 @@ public class CustomerController {
         customerService.deleteCustomer(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Record purchase events",
+            description = "Events are queued and applied asynchronously: purchases for the same customer are summed "
+                    + "over a short window and written as one batched update that also refreshes the tier. "
+                    + "When the queue is full, events from the first rejected one onwards must be resent.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "All events queued",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PurchaseIngestResult.class))}),
+            @ApiResponse(responseCode = "400", description = "An event has no customer id or amount",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Queue full; only the first 'accepted' events were queued",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PurchaseIngestResult.class))})})
+    @PostMapping("/purchases")
+    public ResponseEntity<PurchaseIngestResult> recordPurchases(@RequestBody List<PurchaseEvent> events) {
+        for (PurchaseEvent event : events) {
+            if (event.getCustomerId() == null || event.getAmount() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        PurchaseIngestResult result = purchaseAggregator.submit(events);
+        if (result.rejected() > 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(result);
+        }
+        return ResponseEntity.accepted().body(result);
+    }
+
+    @Operation(summary = "Create customers in bulk",
+            description = "Items are written in chunks with JDBC batching; the response holds one result per item, in request order")
+    @ApiResponse(responseCode = "200", description = "Per-item results",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BatchItemResult.class))})
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createCustomers(@RequestBody List<CustomerDTO> customerDTOs) {
+        return ResponseEntity.ok(customerBatchService.createCustomers(customerDTOs));
+    }
+
+    @Operation(summary = "Update customers in bulk",
+            description = "Each item must carry its id; the response holds one result per item, in request order")
+    @ApiResponse(responseCode = "200", description = "Per-item results",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BatchItemResult.class))})
+    @PutMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> updateCustomers(@RequestBody List<CustomerDTO> customerDTOs) {
+        return ResponseEntity.ok(customerBatchService.updateCustomers(customerDTOs));
+    }
+
+    @Operation(summary = "Delete customers in bulk",
+            description = "Takes an array of customer ids; the response holds one result per id, in request order")
+    @ApiResponse(responseCode = "200", description = "Per-item results",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BatchItemResult.class))})
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> deleteCustomers(@RequestBody List<UUID> ids) {
+        return ResponseEntity.ok(customerBatchService.deleteCustomers(ids));
+    }
+
+    // Unique constraint violations come straight from the database instead of a read-then-write check
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Void> handleDataIntegrityViolation(DataIntegrityViolationException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
 }
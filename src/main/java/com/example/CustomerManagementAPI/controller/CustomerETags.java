@@ -0,0 +1,70 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import org.springframework.util.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * ETags derived from customer versions. Every write, including tier lapses applied by the recomputation job,
+ * increments the version, so a version identifies the full representation of a customer. Tags are weak because
+ * the same version is served as JSON, CBOR or Smile, compressed or not; Tomcat also never compresses a response
+ * that carries a strong tag.
+ */
+final class CustomerETags {
+    private static final UUID NO_ID = new UUID(0, 0);
+
+    private CustomerETags() {
+    }
+
+    static String forVersion(Long version) {
+        return version == null ? null : "W/\"" + version + "\"";
+    }
+
+    // Digest of the ids and versions in result order; changes when any row changes, enters or leaves the result
+    static String forCustomers(List<CustomerDTO> customers) {
+        ByteBuffer buffer = ByteBuffer.allocate(customers.size() * 24);
+        for (CustomerDTO customer : customers) {
+            UUID id = customer.getId() == null ? NO_ID : customer.getId();
+            buffer.putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .putLong(customer.getVersion() == null ? 0 : customer.getVersion());
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(buffer.array()) + "\"";
+    }
+
+    // Weak comparison, as If-None-Match requires
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The version named by an If-Match holding a single tag of ours; weak tags are accepted because they are the
+    // only ones this API hands out. Null for anything else, including *
+    static Long versionOf(String ifMatch) {
+        String tag = stripWeak(ifMatch.trim());
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
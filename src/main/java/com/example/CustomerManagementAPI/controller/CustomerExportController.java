@@ -0,0 +1,108 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.ExportStatus;
+import com.example.CustomerManagementAPI.service.CustomerExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/customers/exports")
+public class CustomerExportController {
+    // Request attributes through which Tomcat hands a file to the connector to be sent by the kernel
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final CustomerExportService customerExportService;
+
+    @Autowired
+    public CustomerExportController(CustomerExportService customerExportService) {
+        this.customerExportService = customerExportService;
+    }
+
+    @Operation(summary = "Start an export of all customers",
+            description = "Writes every customer to a CSV file in the background; poll the returned location "
+                    + "for progress and download the file once the export has completed")
+    @ApiResponse(responseCode = "202", description = "Export started",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ExportStatus.class))})
+    @PostMapping
+    public ResponseEntity<ExportStatus> startExport() {
+        ExportStatus status = customerExportService.startExport();
+        return ResponseEntity.accepted()
+                .location(URI.create("/customers/exports/" + status.id()))
+                .body(status);
+    }
+
+    @Operation(summary = "Get the progress of an export")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ExportStatus.class))}),
+            @ApiResponse(responseCode = "404", description = "Export not found",
+                    content = @Content)})
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportStatus> getExport(@PathVariable UUID id) {
+        return customerExportService.getExport(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Download a completed export as CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The exported file",
+                    content = {@Content(mediaType = TEXT_CSV_VALUE)}),
+            @ApiResponse(responseCode = "404", description = "Export not found or not completed yet",
+                    content = @Content)})
+    @GetMapping("/{id}/file")
+    public void downloadExport(@PathVariable UUID id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<Path> file = customerExportService.getExportFile(id);
+        if (file.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.get())) {
+            long length = channel.size();
+            response.setContentType(TEXT_CSV_VALUE + ";charset=UTF-8");
+            response.setContentLengthLong(length);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("customers-" + id + ".csv")
+                    .build()
+                    .toString());
+            // Tomcat sends the file from the page cache after the request completes, without copying it
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, length);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, out);
+            }
+        }
+    }
+}
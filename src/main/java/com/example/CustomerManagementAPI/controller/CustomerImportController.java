@@ -0,0 +1,88 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.ImportStatus;
+import com.example.CustomerManagementAPI.service.CustomerImportService;
+import com.example.CustomerManagementAPI.service.CustomerImportService.Format;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/customers/imports")
+public class CustomerImportController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(CustomerExportController.TEXT_CSV_VALUE);
+
+    private final CustomerImportService customerImportService;
+
+    @Autowired
+    public CustomerImportController(CustomerImportService customerImportService) {
+        this.customerImportService = customerImportService;
+    }
+
+    @Operation(summary = "Start importing customers from a CSV or NDJSON file",
+            description = "The body is stored and imported in the background, committed in chunks; poll the "
+                    + "returned location for progress. CSV needs a header row with at least name and email; the "
+                    + "export format is accepted as it is. Rejected records are listed in a file that can be "
+                    + "downloaded under the returned id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import started",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportStatus.class))}),
+            @ApiResponse(responseCode = "400", description = "CSV header without name or email column",
+                    content = @Content)})
+    @PostMapping(consumes = {CustomerExportController.TEXT_CSV_VALUE, CustomerController.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportStatus> importCustomers(HttpServletRequest request) throws IOException {
+        Format format = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? Format.CSV
+                : Format.NDJSON;
+        ImportStatus status;
+        try {
+            status = customerImportService.startImport(request.getInputStream(), format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.accepted().location(URI.create("/customers/imports/" + status.id())).body(status);
+    }
+
+    @Operation(summary = "Get the progress of an import")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import status",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportStatus.class))}),
+            @ApiResponse(responseCode = "404", description = "Import not found", content = @Content)})
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportStatus> getImport(@PathVariable UUID id) {
+        return customerImportService.getImport(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Download the records rejected by an import, with line numbers and reasons")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The reject file",
+                    content = {@Content(mediaType = CustomerExportController.TEXT_CSV_VALUE)}),
+            @ApiResponse(responseCode = "404", description = "Import not found or nothing was rejected",
+                    content = @Content)})
+    @GetMapping("/{id}/rejects")
+    public ResponseEntity<Resource> getRejects(@PathVariable UUID id) {
+        return customerImportService.getRejectFile(id)
+                .map(file -> ResponseEntity.ok()
+                        .contentType(new MediaType(TEXT_CSV, StandardCharsets.UTF_8))
+                        .<Resource>body(new FileSystemResource(file)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Writes a customer projection field by field, producing the same JSON as the application's ObjectMapper
+ * does for the equivalent CustomerDTO. Skips the bean serializer lookup and getter reflection, and the
+ * property names are encoded once. On binary generators (CBOR, Smile) the id is written as 16 raw bytes and
+ * the purchase date as a numeric array, the compact forms Jackson's binary mappers use and read back.
+ */
+final class CustomerJsonWriter {
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString ANNUAL_SPEND = new SerializedString("annualSpend");
+    private static final SerializableString LAST_PURCHASE_DATE = new SerializedString("lastPurchaseDate");
+    private static final SerializableString TIER = new SerializedString("tier");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    private CustomerJsonWriter() {
+    }
+
+    static void write(JsonGenerator generator, CustomerRow customer) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        boolean binary = generator.canWriteBinaryNatively();
+        if (customer.id() == null) {
+            generator.writeNull();
+        } else if (binary) {
+            generator.writeBinary(toBytes(customer.id()));
+        } else {
+            generator.writeString(customer.id().toString());
+        }
+        generator.writeFieldName(NAME);
+        generator.writeString(customer.name());
+        generator.writeFieldName(EMAIL);
+        generator.writeString(customer.email());
+        generator.writeFieldName(ANNUAL_SPEND);
+        generator.writeNumber(customer.annualSpend());
+        generator.writeFieldName(LAST_PURCHASE_DATE);
+        // Same formats as the JSR-310 module, with WRITE_DATES_AS_TIMESTAMPS disabled for JSON
+        if (customer.lastPurchaseDate() == null) {
+            generator.writeNull();
+        } else if (binary) {
+            writeDateTimeArray(generator, customer.lastPurchaseDate());
+        } else {
+            generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(customer.lastPurchaseDate()));
+        }
+        generator.writeFieldName(TIER);
+        if (customer.tier() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(customer.tier().name());
+        }
+        generator.writeFieldName(VERSION);
+        if (customer.version() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(customer.version());
+        }
+        generator.writeEndObject();
+    }
+
+    // Trailing zero seconds and nanoseconds are omitted, as in the JSR-310 module
+    private static void writeDateTimeArray(JsonGenerator generator, LocalDateTime dateTime) throws IOException {
+        generator.writeStartArray();
+        generator.writeNumber(dateTime.getYear());
+        generator.writeNumber(dateTime.getMonthValue());
+        generator.writeNumber(dateTime.getDayOfMonth());
+        generator.writeNumber(dateTime.getHour());
+        generator.writeNumber(dateTime.getMinute());
+        if (dateTime.getSecond() > 0 || dateTime.getNano() > 0) {
+            generator.writeNumber(dateTime.getSecond());
+            if (dateTime.getNano() > 0) {
+                generator.writeNumber(dateTime.getNano());
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.CustomerManagementAPI.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads on the primary database where a replica's lag would be visible: reads that fill the customer
+ * cache, or that must reflect a write the caller has just seen committed. Only connections acquired inside
+ * onPrimary are affected, so it has to enclose the transaction or the first query of it.
+ */
+public final class ReadRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+
+    static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
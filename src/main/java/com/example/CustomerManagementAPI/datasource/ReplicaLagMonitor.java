@@ -0,0 +1,80 @@
+package com.example.CustomerManagementAPI.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures replica lag with the change log's sequence counter, which every customer write advances: once the
+ * replica's counter has reached the value the primary had at some instant, the replica holds every write
+ * committed before it. The lag is the time since the latest such instant, so an idle pair is never lagging and
+ * an unreachable replica lags more with every check. Reads fall back to the primary above customer.replica.max-lag.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final String HEAD_SQL = "select last_seq from customer_change_seq where id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagNanos;
+    private final LongSupplier nanoClock;
+    // nanoClock time at which the replica was last known to hold every committed write; unset until then
+    private volatile long inSyncAt;
+    private volatile boolean everInSync;
+    private volatile boolean reachable = true;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+        this(primary, replica, maxLag, meterRegistry, System::nanoTime);
+    }
+
+    ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry meterRegistry,
+                      LongSupplier nanoClock) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagNanos = maxLag.toNanos();
+        this.nanoClock = nanoClock;
+        Gauge.builder("customer.replica.lag", this, monitor -> monitor.everInSync
+                        ? monitor.lagNanos() / (double) TimeUnit.SECONDS.toNanos(1)
+                        : Double.NaN)
+                .description("Time since the read replica last held every committed write")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return everInSync && lagNanos() <= maxLagNanos;
+    }
+
+    @Scheduled(fixedDelayString = "${customer.replica.lag-check-interval:PT1S}")
+    public void check() {
+        long checkedAt = nanoClock.getAsLong();
+        try {
+            long primaryHead = primary.queryForObject(HEAD_SQL, Long.class);
+            long replicaHead = replica.queryForObject(HEAD_SQL, Long.class);
+            if (!reachable) {
+                log.info("Read replica reachable again");
+                reachable = true;
+            }
+            if (replicaHead >= primaryHead) {
+                inSyncAt = checkedAt;
+                everInSync = true;
+            }
+        } catch (RuntimeException e) {
+            if (reachable) {
+                log.warn("Cannot check read replica lag; reads stay on the primary until it recovers", e);
+                reachable = false;
+            }
+        }
+    }
+
+    private long lagNanos() {
+        return everInSync ? nanoClock.getAsLong() - inSyncAt : Long.MAX_VALUE;
+    }
+}
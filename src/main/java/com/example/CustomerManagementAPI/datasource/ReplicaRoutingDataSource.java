@@ -0,0 +1,36 @@
+package com.example.CustomerManagementAPI.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out replica connections to read-only transactions while the replica is within the allowed lag, and
+ * primary connections otherwise. The choice is made when a connection is acquired, so this must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction is only marked read-only after it has begun.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        boolean replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadRouting.isPrimaryRequired()
+                && lagMonitor.isReplicaUsable();
+        return replica ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.CustomerManagementAPI.diagnostics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's DataSource so every statement execution is timed and reported to SlowQueryLog.
+ * The log is looked up lazily, so this post-processor does not force early initialization of its dependencies.
+ * DataSources that only delegate to other DataSource beans, such as the replica router, are left alone, since
+ * the pools behind them are wrapped already.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryDataSourceWrapper implements BeanPostProcessor {
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    public SlowQueryDataSourceWrapper(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)
+                && !(bean instanceof DelegatingDataSource) && !(bean instanceof AbstractRoutingDataSource)) {
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .listener(slowQueryLog.getObject())
+                    .build();
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.CustomerManagementAPI.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs statements slower than the threshold to the customer.slow-query logger, as key=value pairs with the
+ * elapsed time, bind-parameter count, batch size and the service method that issued them. The caller is
+ * resolved on the executing thread only for slow statements; formatting and logging happen on a background
+ * thread fed by a bounded queue, and entries that do not fit are counted and dropped.
+ */
+@Slf4j(topic = "customer.slow-query")
+@Component
+@ConditionalOnProperty(name = "customer.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryLog implements QueryExecutionListener, SmartLifecycle {
+    private static final String SERVICE_PACKAGE = "com.example.CustomerManagementAPI.service.";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    record SlowQuery(String sql, long elapsedMillis, int parameters, int batchSize, String caller, boolean success) {
+    }
+
+    private final long thresholdMillis;
+    private final BlockingQueue<SlowQuery> queue;
+    private final Counter slowQueries;
+    private final Counter droppedEntries;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public SlowQueryLog(@Value("${customer.slow-query.threshold:PT0.1S}") Duration threshold,
+                        @Value("${customer.slow-query.queue-capacity:1000}") int queueCapacity,
+                        MeterRegistry meterRegistry) {
+        this.thresholdMillis = threshold.toMillis();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.slowQueries = Counter.builder("customer.slow.queries").register(meterRegistry);
+        this.droppedEntries = Counter.builder("customer.slow.queries.dropped")
+                .description("Slow-query log entries dropped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis) {
+            return;
+        }
+        slowQueries.increment();
+        for (QueryInfo queryInfo : queryInfoList) {
+            List<?> parameterSets = queryInfo.getParametersList();
+            int parameters = parameterSets.isEmpty() ? 0 : ((List<?>) parameterSets.getFirst()).size();
+            SlowQuery slowQuery = new SlowQuery(queryInfo.getQuery(), execInfo.getElapsedTime(), parameters,
+                    execInfo.getBatchSize(), caller(), execInfo.isSuccess());
+            if (!queue.offer(slowQuery)) {
+                droppedEntries.increment();
+            }
+        }
+    }
+
+    // Innermost frame in the service layer. Statements flushed at commit only have the transactional proxy on the
+    // stack, so proxy classes are reported under the class they proxy; lambdas are named after their enclosing method
+    static String caller() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SERVICE_PACKAGE))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName().substring(SERVICE_PACKAGE.length());
+                    int proxySuffix = className.indexOf("$$");
+                    if (proxySuffix >= 0) {
+                        className = className.substring(0, proxySuffix);
+                    }
+                    String method = frame.getMethodName();
+                    if (method.startsWith("lambda$")) {
+                        int end = method.indexOf('$', "lambda$".length());
+                        method = method.substring("lambda$".length(), end < 0 ? method.length() : end);
+                    }
+                    return className + "." + method;
+                })
+                .orElse("unknown"));
+    }
+
+    private void write() {
+        while (running || !queue.isEmpty()) {
+            try {
+                SlowQuery slowQuery = queue.poll(1, TimeUnit.SECONDS);
+                if (slowQuery != null) {
+                    log.warn("elapsed_ms={} params={} batch_size={} caller={} success={} sql=\"{}\"",
+                            slowQuery.elapsedMillis(), slowQuery.parameters(), slowQuery.batchSize(),
+                            slowQuery.caller(), slowQuery.success(), slowQuery.sql());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::write, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
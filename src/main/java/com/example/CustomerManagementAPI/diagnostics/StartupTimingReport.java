@@ -0,0 +1,94 @@
+package com.example.CustomerManagementAPI.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logs how boot time splits between schema work and the rest of context initialization, from the steps
+ * recorded by BufferingApplicationStartup. Each phase excludes the other reported phases nested inside it
+ * (the JPA factory depends on the migration, for example), so the figures add up. The full timeline is
+ * available from the actuator startup endpoint.
+ */
+@Slf4j
+@Component
+public class StartupTimingReport {
+    private static final String INSTANTIATE_STEP = "spring.beans.instantiate";
+    private static final String REFRESH_STEP = "spring.context.refresh";
+
+    // Bean name to label of the startup phases broken out in the report
+    private static final Map<String, String> REPORTED_BEANS = Map.of(
+            "dataSource", "data source",
+            "flywayInitializer", "schema migration",
+            "&entityManagerFactory", "JPA");
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        List<TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+        Map<Long, StartupStep> steps = new HashMap<>();
+        Map<Long, String> labels = new HashMap<>();
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        Duration refresh = Duration.ZERO;
+        for (TimelineEvent timelineEvent : events) {
+            StartupStep step = timelineEvent.getStartupStep();
+            steps.put(step.getId(), step);
+            if (REFRESH_STEP.equals(step.getName())) {
+                refresh = timelineEvent.getDuration();
+            }
+            String label = INSTANTIATE_STEP.equals(step.getName()) ? REPORTED_BEANS.get(beanName(step)) : null;
+            if (label != null) {
+                labels.put(step.getId(), label);
+                phases.merge(label, timelineEvent.getDuration(), Duration::plus);
+            }
+        }
+        for (TimelineEvent timelineEvent : events) {
+            StartupStep step = timelineEvent.getStartupStep();
+            if (labels.containsKey(step.getId())) {
+                String enclosing = enclosingPhase(step, steps, labels);
+                if (enclosing != null) {
+                    phases.merge(enclosing, timelineEvent.getDuration().negated(), Duration::plus);
+                }
+            }
+        }
+
+        StringBuilder report = new StringBuilder();
+        phases.forEach((label, duration) -> report.append(", ").append(label).append(' ')
+                .append(duration.toMillis()).append(" ms"));
+        log.info("Startup: ready in {} ms; context refresh {} ms{}", event.getTimeTaken().toMillis(),
+                refresh.toMillis(), report);
+    }
+
+    private static String enclosingPhase(StartupStep step, Map<Long, StartupStep> steps, Map<Long, String> labels) {
+        for (Long parentId = step.getParentId(); parentId != null; ) {
+            String label = labels.get(parentId);
+            if (label != null) {
+                return label;
+            }
+            StartupStep parent = steps.get(parentId);
+            parentId = parent == null ? null : parent.getParentId();
+        }
+        return null;
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.CustomerManagementAPI.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Streams jdk.VirtualThreadPinned JFR events in-process and reports where virtual threads
+ * blocked while pinned to their carrier thread. Each distinct stack is logged once; every
+ * event is counted. Since JDK 24 synchronized no longer pins, so what remains is mostly
+ * native frames and class initialization in the persistence path.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "customer.diagnostics.pinning.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final Set<String> reportedStacks = ConcurrentHashMap.newKeySet();
+    private volatile RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(@Value("${customer.diagnostics.pinning.threshold:PT0.02S}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        recordingStream = stream;
+        log.info("Reporting virtual thread pinning longer than {}", threshold);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream stream = recordingStream;
+        recordingStream = null;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recordingStream != null;
+    }
+
+    public long getPinnedEventCount() {
+        return pinnedEvents.sum();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        String stack = describe(event.getStackTrace());
+        if (reportedStacks.add(stack)) {
+            log.warn("Virtual thread pinned for {} ms on {}\n{}", event.getDuration().toMillis(),
+                    event.getThread() == null ? "unknown thread" : event.getThread().getJavaName(), stack);
+        }
+    }
+
+    private static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::describe)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.CustomerManagementAPI.metrics;
+
+import com.example.CustomerManagementAPI.model.Tier;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for customer operations. Timers and counters are registered once up front, so recording on the hot
+ * path is a map lookup by enum plus the meter update, with no tag building or string formatting.
+ */
+@Component
+public class CustomerMetrics {
+
+    public enum Operation {
+        CREATE, GET, SEARCH, UPDATE, DELETE
+    }
+
+    private record RequestKey(String method, String uri) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<Operation, Timer> operationTimers = new EnumMap<>(Operation.class);
+    private final Map<Tier, Counter> tierCounters = new EnumMap<>(Tier.class);
+    private final Map<RequestKey, DistributionSummary> requestQueries = new ConcurrentHashMap<>();
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+
+    @Autowired
+    public CustomerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.clock = meterRegistry.config().clock();
+        for (Operation operation : Operation.values()) {
+            operationTimers.put(operation, Timer.builder("customer.operation")
+                    .description("Latency of customer service operations")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (Tier tier : Tier.values()) {
+            tierCounters.put(tier, Counter.builder("customer.tier.computed")
+                    .description("Tier calculations by resulting tier")
+                    .tag("tier", tier.name())
+                    .register(meterRegistry));
+        }
+        importedRows = Counter.builder("customer.import.rows")
+                .description("Rows read by file imports, by outcome")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        rejectedRows = Counter.builder("customer.import.rows")
+                .description("Rows read by file imports, by outcome")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+    }
+
+    public long start() {
+        return clock.monotonicTime();
+    }
+
+    public void stop(Operation operation, long start) {
+        operationTimers.get(operation).record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void tierComputed(Tier tier) {
+        tierCounters.get(tier).increment();
+    }
+
+    public void rowsImported(long imported, long rejected) {
+        importedRows.increment(imported);
+        rejectedRows.increment(rejected);
+    }
+
+    // uri is the matched handler pattern, so the number of distinct summaries is bounded by the mappings
+    public void requestQueries(String method, String uri, long queries) {
+        requestQueries.computeIfAbsent(new RequestKey(method, uri), key -> DistributionSummary.builder("customer.request.queries")
+                        .description("SQL statements prepared per HTTP request")
+                        .tag("method", key.method())
+                        .tag("uri", key.uri())
+                        .register(meterRegistry))
+                .record(queries);
+    }
+
+}
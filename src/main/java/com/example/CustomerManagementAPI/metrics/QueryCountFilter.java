@@ -0,0 +1,75 @@
+package com.example.CustomerManagementAPI.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how many SQL statements each request issued, tagged by method and matched URI pattern, so N+1
+ * access patterns show up as a high per-request count. Requests that matched no handler are not recorded. A
+ * request that continues asynchronously, such as a streamed listing, is recorded once its response completes, so
+ * the statements issued while writing it are included.
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+    private final QueryCounter queryCounter;
+    private final CustomerMetrics customerMetrics;
+
+    @Autowired
+    public QueryCountFilter(QueryCounter queryCounter, CustomerMetrics customerMetrics) {
+        this.queryCounter = queryCounter;
+        this.customerMetrics = customerMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LongAdder count = queryCounter.open(request);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            queryCounter.unbind();
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String uri) {
+                if (request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(
+                            new RecordListener(customerMetrics, request.getMethod(), uri, count));
+                } else {
+                    customerMetrics.requestQueries(request.getMethod(), uri, count.sum());
+                }
+            }
+        }
+    }
+
+    // Timeouts and errors are followed by onComplete, so that is the only event that records
+    private record RecordListener(CustomerMetrics customerMetrics, String method, String uri, LongAdder count)
+            implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            customerMetrics.requestQueries(method, uri, count.sum());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.example.CustomerManagementAPI.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements Hibernate prepares for a request. The count is kept as a request attribute and bound
+ * to each thread that works on the request: the request thread by the QueryCountFilter, and the thread that
+ * writes a streamed response (StreamingResponseBody, Callable) by an async interceptor, so statements issued
+ * after the handler returned are counted too. Statements on unbound threads are not counted.
+ */
+@Component
+public class QueryCounter implements StatementInspector, HibernatePropertiesCustomizer, WebMvcConfigurer {
+    private static final String ATTRIBUTE = QueryCounter.class.getName() + ".COUNT";
+
+    private final ThreadLocal<LongAdder> current = new ThreadLocal<>();
+
+    // Runs on the thread that executes the async part of a request, around the task
+    final CallableProcessingInterceptor asyncInterceptor = new CallableProcessingInterceptor() {
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            if (request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof LongAdder count) {
+                current.set(count);
+            }
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            current.remove();
+        }
+    };
+
+    @Override
+    public String inspect(String sql) {
+        LongAdder count = current.get();
+        if (count != null) {
+            count.increment();
+        }
+        return sql;
+    }
+
+    // Starts counting the request's statements on the calling thread
+    LongAdder open(HttpServletRequest request) {
+        LongAdder count = new LongAdder();
+        request.setAttribute(ATTRIBUTE, count);
+        current.set(count);
+        return count;
+    }
+
+    void unbind() {
+        current.remove();
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(asyncInterceptor);
+    }
+}
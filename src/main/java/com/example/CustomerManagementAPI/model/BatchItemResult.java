@@ -0,0 +1,21 @@
+package com.example.CustomerManagementAPI.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    // Position of the item in the request array
+    private int index;
+
+    private UUID id;
+
+    private BatchItemStatus status;
+
+    private String message;
+}
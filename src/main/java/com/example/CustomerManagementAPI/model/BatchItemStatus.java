@@ -0,0 +1,11 @@
+package com.example.CustomerManagementAPI.model;
+
+public enum BatchItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    CONFLICT,
+    INVALID,
+    FAILED
+}
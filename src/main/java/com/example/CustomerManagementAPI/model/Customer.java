@@ -1,28 +1,43 @@
 package com.example.CustomerManagementAPI.model;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
-import jakarta.persistence.Transient;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_customer_email", columnNames = "email"), indexes = {
+        @Index(name = "idx_customer_tier_last_purchase", columnList = "tier, lastPurchaseDate"),
+        @Index(name = "idx_customer_tier_id", columnList = "tier, id"),
+        @Index(name = "idx_customer_search_name", columnList = "searchName")})
+@DynamicUpdate
 @Data
 public class Customer {
+    // Generated in memory at persist time, so JDBC insert batching never waits on the database for keys
     @Id
-    @GeneratedValue(generator = "UUID")
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
     private UUID id;
 
     @NotBlank(message = "Name is required")
     private String name;
 
+    // Lowercased, trimmed name maintained by the service; serves prefix search and result ranking
+    private String searchName;
+
+    // Stored trimmed and lowercased; uniqueness is enforced by uk_customer_email
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
     private String email;
@@ -31,6 +46,11 @@ public class Customer {
 
     private LocalDateTime lastPurchaseDate;
 
-    @Transient
+    // Computed on write and by TierRecomputationJob, so reads and tier queries never evaluate it
+    @Enumerated(EnumType.STRING)
     private Tier tier;
+
+    // Checked on every update, including the single-statement PATCH, so concurrent writers cannot overwrite each other
+    @Version
+    private Long version;
 }
@@ -0,0 +1,10 @@
+package com.example.CustomerManagementAPI.model;
+
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One entry of the customer change log; consumers re-read the customer, or drop it when it was deleted
+public record CustomerChange(long seq, UUID id, ChangeType type, LocalDateTime changedAt) {
+}
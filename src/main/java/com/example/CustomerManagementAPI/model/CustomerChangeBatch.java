@@ -0,0 +1,7 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.util.List;
+
+// next is the sequence number to pass as since for the following batch
+public record CustomerChangeBatch(List<CustomerChange> changes, long next) {
+}
@@ -31,4 +31,6 @@ public class CustomerDTO {
     @Transient
     private Tier tier;
 
+    private Long version;
+
 }
@@ -0,0 +1,34 @@
+package com.example.CustomerManagementAPI.model;
+
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+// One row per distinct trigram of a customer's normalized name, used for infix name search
+@Entity
+@Table(name = "customer_name_gram", indexes = @Index(name = "idx_customer_name_gram_gram", columnList = "gram, customerId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerNameGram {
+    @EmbeddedId
+    private Key id;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID customerId;
+
+        private String gram;
+    }
+}
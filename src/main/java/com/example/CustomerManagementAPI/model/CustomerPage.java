@@ -0,0 +1,17 @@
+package com.example.CustomerManagementAPI.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerPage {
+    private List<CustomerDTO> items;
+
+    // Opaque continuation token, null when there are no further pages
+    private String nextCursor;
+}
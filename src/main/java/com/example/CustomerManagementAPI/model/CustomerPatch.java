@@ -0,0 +1,28 @@
+package com.example.CustomerManagementAPI.model;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Partial update of a customer. Null fields are left unchanged. The update only applies to the version it was
+ * based on, given here or as the customer's ETag in If-Match; a patch with neither is refused.
+ */
+@Data
+public class CustomerPatch {
+    @Pattern(regexp = ".*\\S.*", message = "Name must not be blank")
+    private String name;
+
+    @Email(message = "Email should be valid")
+    @Pattern(regexp = ".*\\S.*", message = "Email must not be blank")
+    private String email;
+
+    private BigDecimal annualSpend;
+
+    private LocalDateTime lastPurchaseDate;
+
+    private Long version;
+}
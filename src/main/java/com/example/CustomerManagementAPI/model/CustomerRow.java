@@ -0,0 +1,10 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Read-only projection of a customer, with the same fields as CustomerDTO; loaded without a managed entity
+public record CustomerRow(UUID id, String name, String email, BigDecimal annualSpend,
+                          LocalDateTime lastPurchaseDate, Tier tier, Long version) {
+}
@@ -0,0 +1,7 @@
+package com.example.CustomerManagementAPI.model;
+
+public enum ExportState {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
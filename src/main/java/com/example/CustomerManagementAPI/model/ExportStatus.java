@@ -0,0 +1,8 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.util.UUID;
+
+// totalRows is the customer count when the export started; rows created or deleted since then shift the end
+public record ExportStatus(UUID id, ExportState state, long rowsWritten, long totalRows, long bytesWritten,
+                           String error) {
+}
@@ -0,0 +1,7 @@
+package com.example.CustomerManagementAPI.model;
+
+public enum ImportState {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
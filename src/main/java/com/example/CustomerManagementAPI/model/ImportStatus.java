@@ -0,0 +1,8 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.util.UUID;
+
+// When rowsRejected is non-zero the rejected records and their reasons can be downloaded under the import id
+public record ImportStatus(UUID id, ImportState state, long rowsRead, long rowsImported, long rowsRejected,
+                           long elapsedMillis, long rowsPerSecond, String error) {
+}
@@ -0,0 +1,7 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.math.BigDecimal;
+
+// Grouped by the month of the last purchase; withSpend counts the customers that have an annual spend
+public record MonthSpend(int year, int month, long customers, long withSpend, BigDecimal total) {
+}
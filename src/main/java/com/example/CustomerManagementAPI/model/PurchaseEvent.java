@@ -0,0 +1,22 @@
+package com.example.CustomerManagementAPI.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseEvent {
+    private UUID customerId;
+
+    // Added to annualSpend; negative amounts record refunds
+    private BigDecimal amount;
+
+    // Defaults to the time the event was accepted
+    private LocalDateTime purchasedAt;
+}
@@ -0,0 +1,5 @@
+package com.example.CustomerManagementAPI.model;
+
+// Events past the first rejected one were not queued and should be resent
+public record PurchaseIngestResult(int accepted, int rejected) {
+}
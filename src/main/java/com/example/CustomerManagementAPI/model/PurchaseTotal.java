@@ -0,0 +1,9 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Purchases for one customer coalesced over a flush window
+public record PurchaseTotal(UUID customerId, BigDecimal amount, LocalDateTime lastPurchaseDate) {
+}
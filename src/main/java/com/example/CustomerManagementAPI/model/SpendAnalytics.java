@@ -0,0 +1,7 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.util.List;
+
+// byMonth is keyed by the month of the last purchase, as yyyy-MM; customers without one are left out
+public record SpendAnalytics(List<SpendSegment> byTier, List<SpendSegment> byMonth) {
+}
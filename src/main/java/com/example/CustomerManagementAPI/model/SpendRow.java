@@ -0,0 +1,9 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// The columns the spend analytics snapshot keeps per customer
+public record SpendRow(UUID id, BigDecimal annualSpend, LocalDateTime lastPurchaseDate, Tier tier) {
+}
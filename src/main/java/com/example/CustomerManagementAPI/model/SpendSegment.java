@@ -0,0 +1,8 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.math.BigDecimal;
+
+// Spend figures are over the customers with an annual spend; percentiles are nearest-rank
+public record SpendSegment(String segment, long customers, BigDecimal totalSpend, BigDecimal meanSpend,
+                           BigDecimal p50Spend, BigDecimal p90Spend, BigDecimal p99Spend) {
+}
@@ -0,0 +1,4 @@
+package com.example.CustomerManagementAPI.model;
+
+public record TierCount(Tier tier, long count) {
+}
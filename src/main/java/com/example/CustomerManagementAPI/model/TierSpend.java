@@ -0,0 +1,7 @@
+package com.example.CustomerManagementAPI.model;
+
+import java.math.BigDecimal;
+
+// withSpend counts the customers that have an annual spend; total and mean are over those
+public record TierSpend(Tier tier, long customers, long withSpend, BigDecimal total) {
+}
@@ -0,0 +1,84 @@
+package com.example.CustomerManagementAPI.repository;
+
+import com.example.CustomerManagementAPI.model.CustomerChange;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * The customer_change log, in plain JDBC: entries are written in batches with sequence numbers the caller
+ * allocated, and read back as keyset ranges of the primary key.
+ */
+@Repository
+public class CustomerChangeRepository {
+    private static final String ALLOCATE_SQL = "update customer_change_seq set last_seq = last_seq + :count where id = 1";
+    private static final String LAST_SEQ_SQL = "select last_seq from customer_change_seq where id = 1";
+    private static final String INSERT_SQL = "insert into customer_change (seq, customer_id, change_type, changed_at) "
+            + "values (:seq, :customerId, :changeType, :changedAt)";
+    private static final String FIND_AFTER_SQL = "select seq, customer_id, change_type, changed_at from customer_change "
+            + "where seq > :since order by seq fetch first :limit rows only";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CustomerChangeRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Returns the last of count new sequence numbers. The counter row stays locked until the calling
+    // transaction ends, so blocks are handed out, and become visible, in commit order
+    public long allocate(int count) {
+        jdbcTemplate.update(ALLOCATE_SQL, Map.of("count", count));
+        return findLastSeq();
+    }
+
+    public long findLastSeq() {
+        return jdbcTemplate.queryForObject(LAST_SEQ_SQL, Map.of(), Long.class);
+    }
+
+    public void insert(long firstSeq, List<CustomerChangedEvent> events, LocalDateTime changedAt) {
+        SqlParameterSource[] batch = new SqlParameterSource[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("seq", firstSeq + i)
+                    .addValue("customerId", events.get(i).id())
+                    .addValue("changeType", events.get(i).type().name())
+                    .addValue("changedAt", changedAt);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+    }
+
+    public List<CustomerChange> findAfter(long since, int limit) {
+        return jdbcTemplate.query(FIND_AFTER_SQL, Map.of("since", since, "limit", limit),
+                (rs, rowNum) -> new CustomerChange(rs.getLong("seq"), rs.getObject("customer_id", UUID.class),
+                        ChangeType.valueOf(rs.getString("change_type")),
+                        rs.getObject("changed_at", LocalDateTime.class)));
+    }
+
+    // Sequence number of the newest entry written before the cutoff, if any
+    public OptionalLong findLastSeqChangedBefore(LocalDateTime cutoff) {
+        Long seq = jdbcTemplate.queryForObject("select max(seq) from customer_change where changed_at < :cutoff",
+                Map.of("cutoff", cutoff), Long.class);
+        return seq == null ? OptionalLong.empty() : OptionalLong.of(seq);
+    }
+
+    public OptionalLong findFirstSeq() {
+        Long seq = jdbcTemplate.queryForObject("select min(seq) from customer_change", Map.of(), Long.class);
+        return seq == null ? OptionalLong.empty() : OptionalLong.of(seq);
+    }
+
+    public int deleteBetween(long fromSeq, long toSeq) {
+        return jdbcTemplate.update("delete from customer_change where seq between :fromSeq and :toSeq",
+                Map.of("fromSeq", fromSeq, "toSeq", toSeq));
+    }
+}
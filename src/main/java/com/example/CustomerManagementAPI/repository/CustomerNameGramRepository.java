@@ -0,0 +1,26 @@
+package com.example.CustomerManagementAPI.repository;
+
+import com.example.CustomerManagementAPI.model.CustomerNameGram;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface CustomerNameGramRepository extends JpaRepository<CustomerNameGram, CustomerNameGram.Key> {
+    // Index-only range scan on idx_customer_name_gram_gram, ended by the limit
+    @Query("select g.id.customerId from CustomerNameGram g where g.id.gram = :gram order by g.id.customerId")
+    List<UUID> findCustomerIdsByGram(@Param("gram") String gram, Limit limit);
+
+    @Modifying
+    @Query("delete from CustomerNameGram g where g.id.customerId = :customerId")
+    int deleteByCustomerId(@Param("customerId") UUID customerId);
+
+    @Modifying
+    @Query("delete from CustomerNameGram g where g.id.customerId in :customerIds")
+    int deleteByCustomerIdIn(@Param("customerIds") Collection<UUID> customerIds);
+}
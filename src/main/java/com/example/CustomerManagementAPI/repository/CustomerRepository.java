@@ -1,14 +1,120 @@
 package com.example.CustomerManagementAPI.repository;
 
 import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.example.CustomerManagementAPI.model.MonthSpend;
+import com.example.CustomerManagementAPI.model.SpendRow;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.model.TierCount;
+import com.example.CustomerManagementAPI.model.TierSpend;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+public interface CustomerRepository extends JpaRepository<Customer, UUID>, CustomerRepositoryCustom {
+    int STREAM_FETCH_SIZE = 500;
+
+    // Read-only like findById, so the entity it loads gets no dirty-checking snapshot
+    @Transactional(readOnly = true)
     Optional<Customer> findByEmail(String email);
 
-    List<Customer> findByNameContainingIgnoreCase(String name);
+    @Query("select c.version from Customer c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    // Index range scan on idx_customer_search_name in index order, so the limit ends the scan; used for queries
+    // shorter than one trigram
+    @Query("select c from Customer c where c.searchName like :prefix escape '\\' order by c.searchName")
+    List<Customer> searchByNamePrefix(@Param("prefix") String prefix, Limit limit);
+
+    // Re-checks a bounded list of trigram candidates against the whole query
+    @Query("select c from Customer c where c.id in :ids and c.searchName like :pattern escape '\\'")
+    List<Customer> searchByNameAmong(@Param("ids") Collection<UUID> ids, @Param("pattern") String pattern);
+
+    // Keyset pagination: the primary key index serves both the seek and the ordering
+    List<Customer> findAllByOrderByIdAsc(Limit limit);
+
+    List<Customer> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    // Must be consumed inside a transaction and closed by the caller. Rows are projected straight from the
+    // result set, so no entity, persistence-context entry or dirty-checking snapshot is created per customer
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select new com.example.CustomerManagementAPI.model.CustomerRow(c.id, c.name, c.email, c.annualSpend, " +
+            "c.lastPurchaseDate, c.tier, c.version) from Customer c order by c.id")
+    Stream<CustomerRow> streamAllRowsByOrderByIdAsc();
+
+    // Keyset chunks of projections for exports: each chunk is a short query of its own, and the last id of a
+    // chunk is all that is needed to continue, also after a restart
+    @Query("select new com.example.CustomerManagementAPI.model.CustomerRow(c.id, c.name, c.email, c.annualSpend, " +
+            "c.lastPurchaseDate, c.tier, c.version) from Customer c order by c.id")
+    List<CustomerRow> findFirstRows(Limit limit);
+
+    @Query("select new com.example.CustomerManagementAPI.model.CustomerRow(c.id, c.name, c.email, c.annualSpend, " +
+            "c.lastPurchaseDate, c.tier, c.version) from Customer c where c.id > :after order by c.id")
+    List<CustomerRow> findRowsAfter(@Param("after") UUID after, Limit limit);
+
+    // Served by idx_customer_tier_last_purchase: only rows whose window has lapsed are read
+    @Query("select c.id from Customer c where c.tier = :tier and c.lastPurchaseDate <= :cutoff")
+    List<UUID> findExpiredTierIds(@Param("tier") Tier tier, @Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // The version is bumped like any other write, so version-based ETags and stale PATCHes see the lapse. Rows
+    // whose tier changed or that were purchased from meanwhile are left alone
+    @Modifying(clearAutomatically = true)
+    @Query("update Customer c set c.tier = com.example.CustomerManagementAPI.model.Tier.SILVER, " +
+            "c.version = c.version + 1 where c.id in :ids and c.tier = :tier and c.lastPurchaseDate <= :cutoff")
+    int downgradeTier(@Param("ids") Collection<UUID> ids, @Param("tier") Tier tier,
+                      @Param("cutoff") LocalDateTime cutoff);
+
+    // Which of the ids downgradeTier changed, read back in its transaction while the updated rows are still locked
+    @Query("select c.id from Customer c where c.id in :ids " +
+            "and c.tier = com.example.CustomerManagementAPI.model.Tier.SILVER and c.lastPurchaseDate <= :cutoff")
+    List<UUID> findDowngradedIds(@Param("ids") Collection<UUID> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    List<Customer> findByTierIsNull(Limit limit);
+
+    // Keyset pagination within a tier, served by idx_customer_tier_id
+    List<Customer> findByTierOrderByIdAsc(Tier tier, Limit limit);
+
+    List<Customer> findByTierAndIdGreaterThanOrderByIdAsc(Tier tier, UUID id, Limit limit);
+
+    @Query("select new com.example.CustomerManagementAPI.model.TierCount(c.tier, count(c)) " +
+            "from Customer c where c.tier is not null group by c.tier")
+    List<TierCount> countByTier();
+
+    @Query("select new com.example.CustomerManagementAPI.model.TierSpend(c.tier, count(c), count(c.annualSpend), " +
+            "sum(c.annualSpend)) from Customer c where c.tier is not null group by c.tier")
+    List<TierSpend> sumSpendByTier();
+
+    @Query("select new com.example.CustomerManagementAPI.model.MonthSpend(year(c.lastPurchaseDate), " +
+            "month(c.lastPurchaseDate), count(c), count(c.annualSpend), sum(c.annualSpend)) from Customer c " +
+            "where c.lastPurchaseDate is not null " +
+            "group by year(c.lastPurchaseDate), month(c.lastPurchaseDate)")
+    List<MonthSpend> sumSpendByMonth();
+
+    @Query("select new com.example.CustomerManagementAPI.model.SpendRow(c.id, c.annualSpend, c.lastPurchaseDate, " +
+            "c.tier) from Customer c order by c.id")
+    List<SpendRow> findFirstSpendRows(Limit limit);
+
+    @Query("select new com.example.CustomerManagementAPI.model.SpendRow(c.id, c.annualSpend, c.lastPurchaseDate, " +
+            "c.tier) from Customer c where c.id > :after order by c.id")
+    List<SpendRow> findSpendRowsAfter(@Param("after") UUID after, Limit limit);
+
+    @Query("select new com.example.CustomerManagementAPI.model.SpendRow(c.id, c.annualSpend, c.lastPurchaseDate, " +
+            "c.tier) from Customer c where c.id in :ids")
+    List<SpendRow> findSpendRowsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("select c.id from Customer c where c.id in :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
 }
@@ -0,0 +1,24 @@
+package com.example.CustomerManagementAPI.repository;
+
+import com.example.CustomerManagementAPI.model.CustomerPatch;
+import com.example.CustomerManagementAPI.model.PurchaseTotal;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface CustomerRepositoryCustom {
+
+    /**
+     * Applies the non-null fields of the patch, recomputes the tier and bumps the version in a single UPDATE,
+     * without loading the customer. Returns the number of rows updated: 0 if the customer does not exist or if
+     * the given version is no longer current. The version in the patch itself is not read.
+     */
+    int patch(UUID id, CustomerPatch patch, long version, LocalDateTime now);
+
+    /**
+     * Adds each total to the customer's annual spend, advances the last purchase date, recomputes the tier and
+     * bumps the version, as one JDBC batch. Returns the update count per total; 0 means the customer does not exist.
+     */
+    int[] applyPurchases(List<PurchaseTotal> totals, LocalDateTime now);
+}
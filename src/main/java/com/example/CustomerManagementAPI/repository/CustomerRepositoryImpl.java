@@ -0,0 +1,119 @@
+package com.example.CustomerManagementAPI.repository;
+
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.CustomerPatch;
+import com.example.CustomerManagementAPI.model.PurchaseTotal;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.service.CustomerNameIndex;
+import com.example.CustomerManagementAPI.service.CustomerService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+class CustomerRepositoryImpl implements CustomerRepositoryCustom {
+    // Standard SQL evaluates every SET expression against the old row, so the new spend and date are spelled out
+    private static final String NEW_SPEND = "coalesce(annual_spend, 0) + :amount";
+    private static final String NEW_LAST_PURCHASE = "greatest(coalesce(last_purchase_date, :purchasedAt), :purchasedAt)";
+    private static final String APPLY_PURCHASE_SQL = "update customer set "
+            + "annual_spend = " + NEW_SPEND + ", "
+            + "last_purchase_date = " + NEW_LAST_PURCHASE + ", "
+            + "tier = case "
+            + "when " + NEW_SPEND + " >= :platinumSpend and " + NEW_LAST_PURCHASE + " > :platinumCutoff then 'PLATINUM' "
+            + "when " + NEW_SPEND + " >= :goldSpend and " + NEW_SPEND + " < :platinumSpend "
+            + "and " + NEW_LAST_PURCHASE + " > :goldCutoff then 'GOLD' "
+            + "else 'SILVER' end, "
+            + "version = version + 1 "
+            + "where id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CustomerRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int patch(UUID id, CustomerPatch patch, long expectedVersion, LocalDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Customer> update = cb.createCriteriaUpdate(Customer.class);
+        Root<Customer> customer = update.from(Customer.class);
+
+        if (patch.getName() != null) {
+            update.set(customer.<String>get("name"), patch.getName());
+            update.set(customer.<String>get("searchName"), CustomerNameIndex.normalize(patch.getName()));
+        }
+        if (patch.getEmail() != null) {
+            update.set(customer.<String>get("email"), patch.getEmail());
+        }
+        // Patched values are bound as parameters, not inlined, so the statement text stays cacheable
+        Expression<BigDecimal> annualSpend = customer.get("annualSpend");
+        if (patch.getAnnualSpend() != null) {
+            annualSpend = cb.parameter(BigDecimal.class, "annualSpend");
+            update.set(customer.<BigDecimal>get("annualSpend"), annualSpend);
+        }
+        Expression<LocalDateTime> lastPurchaseDate = customer.get("lastPurchaseDate");
+        if (patch.getLastPurchaseDate() != null) {
+            lastPurchaseDate = cb.parameter(LocalDateTime.class, "lastPurchaseDate");
+            update.set(customer.<LocalDateTime>get("lastPurchaseDate"), lastPurchaseDate);
+        }
+
+        // Same rules as CustomerService.calculateTier, evaluated against the patched values or the stored ones
+        update.set(customer.<Tier>get("tier"), cb.<Tier>selectCase()
+                .when(cb.and(cb.greaterThanOrEqualTo(annualSpend, CustomerService.PLATINUM_MIN_SPEND),
+                                cb.greaterThan(lastPurchaseDate, now.minusMonths(CustomerService.PLATINUM_WINDOW_MONTHS))),
+                        Tier.PLATINUM)
+                .when(cb.and(cb.greaterThanOrEqualTo(annualSpend, CustomerService.GOLD_MIN_SPEND),
+                                cb.lessThan(annualSpend, CustomerService.PLATINUM_MIN_SPEND),
+                                cb.greaterThan(lastPurchaseDate, now.minusMonths(CustomerService.GOLD_WINDOW_MONTHS))),
+                        Tier.GOLD)
+                .otherwise(Tier.SILVER));
+        Path<Long> version = customer.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        update.where(cb.equal(customer.get("id"), id), cb.equal(version, expectedVersion));
+
+        Query query = entityManager.createQuery(update);
+        if (patch.getAnnualSpend() != null) {
+            query.setParameter("annualSpend", patch.getAnnualSpend());
+        }
+        if (patch.getLastPurchaseDate() != null) {
+            query.setParameter("lastPurchaseDate", patch.getLastPurchaseDate());
+        }
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int[] applyPurchases(List<PurchaseTotal> totals, LocalDateTime now) {
+        LocalDateTime platinumCutoff = now.minusMonths(CustomerService.PLATINUM_WINDOW_MONTHS);
+        LocalDateTime goldCutoff = now.minusMonths(CustomerService.GOLD_WINDOW_MONTHS);
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[totals.size()];
+        for (int i = 0; i < batch.length; i++) {
+            PurchaseTotal total = totals.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("id", total.customerId())
+                    .addValue("amount", total.amount())
+                    .addValue("purchasedAt", total.lastPurchaseDate())
+                    .addValue("platinumSpend", CustomerService.PLATINUM_MIN_SPEND)
+                    .addValue("platinumCutoff", platinumCutoff)
+                    .addValue("goldSpend", CustomerService.GOLD_MIN_SPEND)
+                    .addValue("goldCutoff", goldCutoff);
+        }
+        return jdbcTemplate.batchUpdate(APPLY_PURCHASE_SQL, batch);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.CustomerManagementAPI.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token bucket, kept as the generic cell rate algorithm: each client has a single "theoretical
+ * arrival time", and admitting a request is one compare-and-set on it. Clients never contend with each other,
+ * and a client's own concurrent requests retry the CAS instead of blocking. A client idle for longer than it
+ * takes to refill its bucket is evicted, which loses nothing.
+ */
+@Component
+public class ClientRateLimiter {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> arrivals;
+
+    @Autowired
+    public ClientRateLimiter(@Value("${customer.rate-limit.requests-per-second:50}") double requestsPerSecond,
+                             @Value("${customer.rate-limit.burst:100}") int burst,
+                             @Value("${customer.rate-limit.max-clients:100000}") long maxClients) {
+        this(requestsPerSecond, burst, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(double requestsPerSecond, int burst, long maxClients, LongSupplier nanoClock) {
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (Math.max(burst, 1) - 1);
+        this.nanoClock = nanoClock;
+        this.arrivals = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(burstToleranceNanos + emissionIntervalNanos))
+                .ticker(nanoClock::getAsLong)
+                .build();
+    }
+
+    // Zero when the request is admitted, otherwise the nanoseconds until the client may send the next one
+    public long acquire(String client) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = arrivals.get(client, key -> new AtomicLong(now));
+        while (true) {
+            long theoretical = arrival.get();
+            long start = theoretical - now < 0 ? now : theoretical;
+            long wait = start - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(theoretical, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.CustomerManagementAPI.security;
+
+import com.example.CustomerManagementAPI.security.LoadShedder.Rejection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the customer endpoints, run inside the security filter chain after authentication.
+ * Requests are shed with 503 by the LoadShedder, then limited per client with 429 once the client's bucket is
+ * empty. Clients are identified by their authenticated principal, or by remote address while anonymous; nothing
+ * the client merely asserts, such as a header, picks the bucket. Both rejections carry Retry-After. A streamed
+ * response stays in flight until its asynchronous processing completes, except on the change feed, whose long
+ * polls and event streams wait for changes without using a thread or a connection.
+ */
+public class ClientThrottlingFilter extends OncePerRequestFilter {
+    private static final String PATH_PREFIX = "/customers";
+    private static final String CHANGES_PATH = "/customers/changes";
+
+    private final ClientRateLimiter rateLimiter;
+    private final LoadShedder loadShedder;
+    private final Counter rateLimited;
+    private final Map<Rejection, Counter> shed = new EnumMap<>(Rejection.class);
+
+    public ClientThrottlingFilter(ClientRateLimiter rateLimiter, LoadShedder loadShedder, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.loadShedder = loadShedder;
+        this.rateLimited = rejections(meterRegistry, "rate_limited");
+        shed.put(Rejection.OVERLOADED, rejections(meterRegistry, "overloaded"));
+        shed.put(Rejection.POOL_SATURATED, rejections(meterRegistry, "pool_saturated"));
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("customer.requests.rejected")
+                .description("Customer API requests rejected by rate limiting or load shedding")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Optional<Rejection> rejection = loadShedder.tryEnter();
+        if (rejection.isPresent()) {
+            shed.get(rejection.get()).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return;
+        }
+        boolean released = false;
+        try {
+            long waitNanos = rateLimiter.acquire(client(request));
+            if (waitNanos > 0) {
+                rateLimited.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS,
+                        Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+                return;
+            }
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted() && !request.getRequestURI().equals(request.getContextPath() + CHANGES_PATH)) {
+                request.getAsyncContext().addListener(new ExitListener(loadShedder));
+                released = true;
+            }
+        } finally {
+            if (!released) {
+                loadShedder.exit();
+            }
+        }
+    }
+
+    // Spring Security's request wrapper reports no principal for anonymous requests
+    private static String client(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? "user:" + principal.getName() : "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    // Timeouts and errors are followed by onComplete, so that is the only event that releases the slot
+    private record ExitListener(LoadShedder loadShedder) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            loadShedder.exit();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
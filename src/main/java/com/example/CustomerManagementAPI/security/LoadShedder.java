@@ -0,0 +1,108 @@
+package com.example.CustomerManagementAPI.security;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Rejects work the server cannot take on: requests are shed while more than customer.shedding.max-in-flight
+ * are being served, or while more than customer.shedding.max-pool-waiters threads are already queued for a
+ * database connection, since every request admitted then would only add to the connection wait.
+ */
+@Component
+public class LoadShedder {
+
+    public enum Rejection {
+        OVERLOADED, POOL_SATURATED
+    }
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int maxInFlight;
+    private final int maxPoolWaiters;
+    private final IntSupplier poolWaiters;
+
+    @Autowired
+    public LoadShedder(ObjectProvider<DataSource> dataSource,
+                       @Value("${customer.shedding.max-in-flight:200}") int maxInFlight,
+                       @Value("${customer.shedding.max-pool-waiters:20}") int maxPoolWaiters,
+                       MeterRegistry meterRegistry) {
+        this(new HikariWaiters(dataSource), maxInFlight, maxPoolWaiters, meterRegistry);
+    }
+
+    LoadShedder(IntSupplier poolWaiters, int maxInFlight, int maxPoolWaiters, MeterRegistry meterRegistry) {
+        this.poolWaiters = poolWaiters;
+        this.maxInFlight = maxInFlight;
+        this.maxPoolWaiters = maxPoolWaiters;
+        Gauge.builder("customer.requests.in.flight", inFlight, AtomicInteger::get)
+                .description("Customer API requests being served")
+                .register(meterRegistry);
+    }
+
+    // Empty when the request is admitted; the caller must then call exit() once it has been served
+    public Optional<Rejection> tryEnter() {
+        if (poolWaiters.getAsInt() > maxPoolWaiters) {
+            return Optional.of(Rejection.POOL_SATURATED);
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return Optional.of(Rejection.OVERLOADED);
+        }
+        return Optional.empty();
+    }
+
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    // Hikari starts its pool on the first connection, so the pool bean is looked up until it exists
+    private static final class HikariWaiters implements IntSupplier {
+        private final ObjectProvider<DataSource> dataSource;
+        private volatile HikariPoolMXBean pool;
+        private volatile boolean unsupported;
+
+        private HikariWaiters(ObjectProvider<DataSource> dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public int getAsInt() {
+            HikariPoolMXBean current = pool;
+            if (current == null) {
+                if (unsupported) {
+                    return 0;
+                }
+                current = resolve();
+                if (current == null) {
+                    return 0;
+                }
+            }
+            return current.getThreadsAwaitingConnection();
+        }
+
+        private HikariPoolMXBean resolve() {
+            DataSource candidate = dataSource.getIfUnique();
+            try {
+                if (candidate == null || !candidate.isWrapperFor(HikariDataSource.class)) {
+                    unsupported = true;
+                    return null;
+                }
+                pool = candidate.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+                return pool;
+            } catch (SQLException e) {
+                unsupported = true;
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.CustomerManagementAPI.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
+/**
+ * The same chain Spring Boot configures by default (every request authenticated, form login and HTTP Basic,
+ * CSRF protection on), with throttling of the customer endpoints added once the client is authenticated.
+ * The throttling filter is not a bean, so it runs only here and not a second time in the servlet filter chain.
+ */
+@Configuration
+public class SecurityConfig {
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ClientRateLimiter rateLimiter,
+                                                   LoadShedder loadShedder, MeterRegistry meterRegistry)
+            throws Exception {
+        http.authorizeHttpRequests(requests -> requests.anyRequest().authenticated())
+                .formLogin(withDefaults())
+                .httpBasic(withDefaults())
+                .addFilterBefore(new ClientThrottlingFilter(rateLimiter, loadShedder, meterRegistry),
+                        AuthorizationFilter.class);
+        return http.build();
+    }
+}
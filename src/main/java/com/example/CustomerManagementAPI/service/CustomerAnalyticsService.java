@@ -0,0 +1,67 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.MonthSpend;
+import com.example.CustomerManagementAPI.model.SpendAnalytics;
+import com.example.CustomerManagementAPI.model.SpendSegment;
+import com.example.CustomerManagementAPI.model.TierSpend;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerSpendSnapshot.Segmentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spend aggregates by tier and by month of the last purchase. Counts and totals are grouped by the database;
+ * percentiles, which SQL cannot compute here, come from the in-memory CustomerSpendSnapshot. The two are read
+ * moments apart, so under concurrent writes they may differ by the customers written in between.
+ */
+@Service
+public class CustomerAnalyticsService {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final CustomerRepository customerRepository;
+    private final CustomerSpendSnapshot customerSpendSnapshot;
+
+    @Autowired
+    public CustomerAnalyticsService(CustomerRepository customerRepository, CustomerSpendSnapshot customerSpendSnapshot) {
+        this.customerRepository = customerRepository;
+        this.customerSpendSnapshot = customerSpendSnapshot;
+    }
+
+    public SpendAnalytics getSpendAnalytics() {
+        Map<Integer, long[]> tierPercentiles = customerSpendSnapshot.percentiles(Segmentation.TIER, QUANTILES);
+        Map<Integer, long[]> monthPercentiles = customerSpendSnapshot.percentiles(Segmentation.MONTH, QUANTILES);
+
+        List<SpendSegment> byTier = customerRepository.sumSpendByTier().stream()
+                .sorted(Comparator.comparing(TierSpend::tier))
+                .map(spend -> segment(spend.tier().name(), spend.customers(), spend.withSpend(), spend.total(),
+                        tierPercentiles.get(spend.tier().ordinal())))
+                .toList();
+        List<SpendSegment> byMonth = customerRepository.sumSpendByMonth().stream()
+                .sorted(Comparator.comparingInt(MonthSpend::year).thenComparingInt(MonthSpend::month))
+                .map(spend -> segment(YearMonth.of(spend.year(), spend.month()).toString(), spend.customers(),
+                        spend.withSpend(), spend.total(),
+                        monthPercentiles.get(spend.year() * 12 + spend.month() - 1)))
+                .toList();
+        return new SpendAnalytics(byTier, byMonth);
+    }
+
+    private static SpendSegment segment(String name, long customers, long withSpend, BigDecimal total,
+                                        long[] percentiles) {
+        BigDecimal mean = withSpend == 0 || total == null
+                ? null
+                : total.divide(BigDecimal.valueOf(withSpend), 2, RoundingMode.HALF_EVEN);
+        return new SpendSegment(name, customers, total, mean,
+                percentile(percentiles, 0), percentile(percentiles, 1), percentile(percentiles, 2));
+    }
+
+    private static BigDecimal percentile(long[] percentiles, int index) {
+        return percentiles == null ? null : BigDecimal.valueOf(percentiles[index], 2);
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.BatchItemResult;
+import com.example.CustomerManagementAPI.model.BatchItemStatus;
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk create, update and delete. Each chunk of customer.batch.chunk-size items runs in its own
+ * transaction, so Hibernate can send it as JDBC batches and a failing chunk does not roll back
+ * the chunks before it.
+ */
+@Service
+public class CustomerBatchService {
+    private final CustomerRepository customerRepository;
+    private final CustomerService customerService;
+    private final CustomerNameIndex customerNameIndex;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    @Autowired
+    public CustomerBatchService(CustomerRepository customerRepository, CustomerService customerService,
+                                CustomerNameIndex customerNameIndex, EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                Validator validator, ApplicationEventPublisher eventPublisher,
+                                @Value("${customer.batch.chunk-size:500}") int chunkSize) {
+        this.customerRepository = customerRepository;
+        this.customerService = customerService;
+        this.customerNameIndex = customerNameIndex;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BatchItemResult> createCustomers(List<CustomerDTO> customerDTOs) {
+        return inChunks(customerDTOs, this::createChunk);
+    }
+
+    public List<BatchItemResult> updateCustomers(List<CustomerDTO> customerDTOs) {
+        return inChunks(customerDTOs, this::updateChunk);
+    }
+
+    public List<BatchItemResult> deleteCustomers(List<UUID> ids) {
+        return inChunks(ids, this::deleteChunk);
+    }
+
+    private <T> List<BatchItemResult> inChunks(List<T> items, ChunkHandler<T> handler) {
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        for (int start = 0; start < items.size(); start += chunkSize) {
+            List<T> chunk = items.subList(start, Math.min(start + chunkSize, items.size()));
+            results.addAll(handler.process(chunk, start));
+        }
+        return results;
+    }
+
+    private List<BatchItemResult> createChunk(List<CustomerDTO> chunk, int offset) {
+        BatchItemResult[] results = new BatchItemResult[chunk.size()];
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < chunk.size(); i++) {
+            CustomerDTO customerDTO = chunk.get(i);
+            String violations = validate(customerDTO);
+            if (violations != null) {
+                results[i] = new BatchItemResult(offset + i, null, BatchItemStatus.INVALID, violations);
+                continue;
+            }
+            if (customerDTO.getLastPurchaseDate() == null) {
+                customerDTO.setLastPurchaseDate(now);
+            }
+            positions.add(i);
+        }
+        createAt(chunk, positions, offset, results);
+        return List.of(results);
+    }
+
+    // For items the caller has validated already; the whole list is written in one transaction
+    public List<BatchItemResult> createValidatedCustomers(List<CustomerDTO> customerDTOs) {
+        BatchItemResult[] results = new BatchItemResult[customerDTOs.size()];
+        createAt(customerDTOs, IntStream.range(0, customerDTOs.size()).boxed().toList(), 0, results);
+        return List.of(results);
+    }
+
+    private void createAt(List<CustomerDTO> chunk, List<Integer> positions, int offset, BatchItemResult[] results) {
+        try {
+            List<Customer> customers = transactionTemplate.execute(status -> insert(positions.stream().map(chunk::get).toList()));
+            for (int j = 0; j < customers.size(); j++) {
+                int i = positions.get(j);
+                results[i] = new BatchItemResult(offset + i, customers.get(j).getId(), BatchItemStatus.CREATED, null);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Some email in the chunk already exists: retry one by one so only the duplicates are rejected
+            for (int i : positions) {
+                results[i] = createOne(chunk.get(i), offset + i);
+            }
+        } catch (RuntimeException e) {
+            for (int i : positions) {
+                results[i] = new BatchItemResult(offset + i, null, BatchItemStatus.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    private BatchItemResult createOne(CustomerDTO customerDTO, int index) {
+        try {
+            Customer customer = transactionTemplate.execute(status -> insert(List.of(customerDTO))).getFirst();
+            return new BatchItemResult(index, customer.getId(), BatchItemStatus.CREATED, null);
+        } catch (DataIntegrityViolationException e) {
+            return new BatchItemResult(index, null, BatchItemStatus.CONFLICT, "email: already in use");
+        } catch (RuntimeException e) {
+            return new BatchItemResult(index, null, BatchItemStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private List<Customer> insert(List<CustomerDTO> customerDTOs) {
+        List<Customer> customers = new ArrayList<>(customerDTOs.size());
+        for (CustomerDTO customerDTO : customerDTOs) {
+            Customer customer = new Customer();
+            customerService.applyDetails(customer, customerDTO);
+            customers.add(customer);
+        }
+        customerRepository.saveAll(customers);
+        customers.forEach(customer -> {
+            customerNameIndex.index(customer.getId(), customer.getName());
+            eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.CREATED, customer.getId()));
+        });
+        // Flushing through the repository translates constraint violations into DataIntegrityViolationException
+        customerRepository.flush();
+        entityManager.clear();
+        return customers;
+    }
+
+    private List<BatchItemResult> updateChunk(List<CustomerDTO> chunk, int offset) {
+        BatchItemResult[] results = new BatchItemResult[chunk.size()];
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            CustomerDTO customerDTO = chunk.get(i);
+            String violations = customerDTO.getId() == null ? "id: must not be null" : validate(customerDTO);
+            if (violations != null) {
+                results[i] = new BatchItemResult(offset + i, customerDTO.getId(), BatchItemStatus.INVALID, violations);
+            } else {
+                positions.add(i);
+            }
+        }
+
+        try {
+            List<BatchItemStatus> statuses = transactionTemplate.execute(status -> update(positions.stream().map(chunk::get).toList()));
+            for (int j = 0; j < statuses.size(); j++) {
+                int i = positions.get(j);
+                results[i] = new BatchItemResult(offset + i, chunk.get(i).getId(), statuses.get(j), null);
+            }
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // A duplicate email or a concurrent change: retry one by one so only the conflicting items are rejected
+            for (int i : positions) {
+                results[i] = updateOne(chunk.get(i), offset + i);
+            }
+        } catch (RuntimeException e) {
+            for (int i : positions) {
+                results[i] = new BatchItemResult(offset + i, chunk.get(i).getId(), BatchItemStatus.FAILED, e.getMessage());
+            }
+        }
+        return List.of(results);
+    }
+
+    private BatchItemResult updateOne(CustomerDTO customerDTO, int index) {
+        try {
+            BatchItemStatus status = transactionTemplate.execute(s -> update(List.of(customerDTO))).getFirst();
+            return new BatchItemResult(index, customerDTO.getId(), status, null);
+        } catch (DataIntegrityViolationException e) {
+            return new BatchItemResult(index, customerDTO.getId(), BatchItemStatus.CONFLICT, "email: already in use");
+        } catch (OptimisticLockingFailureException e) {
+            return new BatchItemResult(index, customerDTO.getId(), BatchItemStatus.CONFLICT, "modified concurrently");
+        } catch (RuntimeException e) {
+            return new BatchItemResult(index, customerDTO.getId(), BatchItemStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private List<BatchItemStatus> update(List<CustomerDTO> customerDTOs) {
+        // One SELECT ... IN for the whole chunk, then batched UPDATEs on flush
+        Set<UUID> ids = customerDTOs.stream().map(CustomerDTO::getId).collect(Collectors.toSet());
+        Map<UUID, Customer> customers = customerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        List<BatchItemStatus> statuses = new ArrayList<>(customerDTOs.size());
+        for (CustomerDTO customerDTO : customerDTOs) {
+            Customer customer = customers.get(customerDTO.getId());
+            if (customer == null) {
+                statuses.add(BatchItemStatus.NOT_FOUND);
+                continue;
+            }
+            if (customerService.applyDetails(customer, customerDTO)) {
+                customerNameIndex.reindex(customer.getId(), customer.getName());
+            }
+            eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.UPDATED, customer.getId()));
+            statuses.add(BatchItemStatus.UPDATED);
+        }
+        // Flushing through the repository translates constraint violations and stale versions
+        customerRepository.flush();
+        entityManager.clear();
+        return statuses;
+    }
+
+    private List<BatchItemResult> deleteChunk(List<UUID> chunk, int offset) {
+        BatchItemResult[] results = new BatchItemResult[chunk.size()];
+        try {
+            Set<UUID> existing = transactionTemplate.execute(status -> {
+                Set<UUID> found = new HashSet<>(customerRepository.findExistingIds(new HashSet<>(chunk)));
+                customerNameIndex.removeAll(found);
+                customerRepository.deleteAllByIdInBatch(found);
+                found.forEach(id -> eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.DELETED, id)));
+                return found;
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                UUID id = chunk.get(i);
+                BatchItemStatus status = existing.contains(id) ? BatchItemStatus.DELETED : BatchItemStatus.NOT_FOUND;
+                results[i] = new BatchItemResult(offset + i, id, status, null);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                results[i] = new BatchItemResult(offset + i, chunk.get(i), BatchItemStatus.FAILED, e.getMessage());
+            }
+        }
+        return List.of(results);
+    }
+
+    String validate(CustomerDTO customerDTO) {
+        Set<ConstraintViolation<CustomerDTO>> violations = validator.validate(customerDTO);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    @FunctionalInterface
+    private interface ChunkHandler<T> {
+        List<BatchItemResult> process(List<T> chunk, int offset);
+    }
+}
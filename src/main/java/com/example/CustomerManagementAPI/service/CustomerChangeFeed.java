@@ -0,0 +1,275 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.CustomerChange;
+import com.example.CustomerManagementAPI.model.CustomerChangeBatch;
+import com.example.CustomerManagementAPI.repository.CustomerChangeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read side of the customer change log. Batches are keyset reads of the log after a sequence number; since
+ * sequence numbers are dense, a batch that does not start right after that number means the entries in between
+ * were pruned. Long polls and streaming subscriptions park without a thread and are woken when a change commits,
+ * then read and deliver on virtual threads, so a slow consumer never holds up a writer or another consumer. The
+ * head is also re-read from the database every heartbeat, which picks up changes committed by other instances.
+ */
+@Slf4j
+@Service
+public class CustomerChangeFeed implements SmartLifecycle {
+    private final CustomerChangeRepository customerChangeRepository;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final Duration heartbeat;
+    private final AtomicLong head = new AtomicLong();
+    private final Set<Poll> polls = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private ExecutorService deliveries;
+    private ScheduledExecutorService scheduler;
+
+    /** Receives the batches of a subscription in order, one call at a time. */
+    public interface Subscriber {
+        void changes(CustomerChangeBatch batch) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        // The subscription has fallen behind the retained log and ends; the consumer must resync
+        void gone();
+
+        // The subscription ends because delivery or reading failed; the consumer may resume from its last batch
+        void failed(Exception e);
+    }
+
+    @Autowired
+    public CustomerChangeFeed(CustomerChangeRepository customerChangeRepository, MeterRegistry meterRegistry,
+                              @Value("${customer.changes.max-batch-size:1000}") int maxBatchSize,
+                              @Value("${customer.changes.max-wait:PT30S}") Duration maxWait,
+                              @Value("${customer.changes.heartbeat:PT15S}") Duration heartbeat) {
+        this.customerChangeRepository = customerChangeRepository;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.heartbeat = heartbeat;
+        Gauge.builder("customer.changes.consumers", () -> polls.size() + subscriptions.size())
+                .description("Long polls and streams waiting for customer changes")
+                .register(meterRegistry);
+    }
+
+    // Sequence number of the newest committed change; a consumer that has read everything up to it is in sync
+    public long head() {
+        return head.get();
+    }
+
+    /**
+     * Up to limit changes after since, oldest first. Empty when entries after since have been pruned, in which
+     * case the consumer must resync from a full read; since must not be negative.
+     */
+    public Optional<CustomerChangeBatch> read(long since, int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
+        }
+        // Read first: every change up to it is committed, so the query below must see it
+        long committed = head.get();
+        List<CustomerChange> changes = customerChangeRepository.findAfter(since, Math.clamp(limit, 1, maxBatchSize));
+        if (changes.isEmpty() ? since < committed : changes.getFirst().seq() != since + 1) {
+            return Optional.empty();
+        }
+        return Optional.of(new CustomerChangeBatch(changes, changes.isEmpty() ? since : changes.getLast().seq()));
+    }
+
+    // Completes with the first non-empty batch after since, or with an empty one once wait (capped) has passed
+    public CompletableFuture<Optional<CustomerChangeBatch>> poll(long since, int limit, Duration wait) {
+        Optional<CustomerChangeBatch> batch = read(since, limit);
+        if (batch.isEmpty() || !batch.get().changes().isEmpty() || wait.isZero() || wait.isNegative()) {
+            return CompletableFuture.completedFuture(batch);
+        }
+        Poll poll = new Poll(since, limit);
+        polls.add(poll);
+        scheduler.schedule(() -> {
+            if (polls.remove(poll)) {
+                poll.result.complete(batch);
+            }
+        }, Math.min(wait.toMillis(), maxWait.toMillis()), TimeUnit.MILLISECONDS);
+        // A change committed before the poll was registered would not wake it
+        if (head.get() > since) {
+            wake(poll);
+        }
+        return poll.result;
+    }
+
+    // Delivers every change after since and then each one as it commits, until the returned handle is run
+    public Runnable subscribe(long since, int limit, Subscriber subscriber) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
+        }
+        Subscription subscription = new Subscription(since, limit, subscriber);
+        subscriptions.add(subscription);
+        subscription.signal();
+        return () -> subscriptions.remove(subscription);
+    }
+
+    // Called once a transaction that appended up to lastSeq has committed
+    void committed(long lastSeq) {
+        if (lastSeq > head.getAndAccumulate(lastSeq, Math::max)) {
+            wakeAll();
+        }
+    }
+
+    private void wakeAll() {
+        long current = head.get();
+        for (Poll poll : polls) {
+            if (current > poll.since) {
+                wake(poll);
+            }
+        }
+        subscriptions.forEach(Subscription::signal);
+    }
+
+    private void wake(Poll poll) {
+        if (running && polls.remove(poll)) {
+            deliveries.execute(() -> {
+                try {
+                    poll.result.complete(read(poll.since, poll.limit));
+                } catch (RuntimeException e) {
+                    poll.result.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private void beat() {
+        try {
+            committed(customerChangeRepository.findLastSeq());
+        } catch (RuntimeException e) {
+            log.warn("Cannot read the customer change log head", e);
+        }
+        for (Subscription subscription : subscriptions) {
+            deliveries.execute(() -> {
+                try {
+                    subscription.subscriber.heartbeat();
+                } catch (IOException | RuntimeException e) {
+                    subscription.fail(e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void start() {
+        head.set(customerChangeRepository.findLastSeq());
+        deliveries = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("customer-changes-", 0).factory());
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("customer-changes-heartbeat").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::beat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    // Waiting polls are answered with an empty batch and streams are ended, so clients resume elsewhere
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        for (Poll poll : polls) {
+            if (polls.remove(poll)) {
+                poll.result.complete(Optional.of(new CustomerChangeBatch(List.of(), poll.since)));
+            }
+        }
+        IllegalStateException stopping = new IllegalStateException("Change feed stopped");
+        subscriptions.forEach(subscription -> subscription.fail(stopping));
+        deliveries.shutdown();
+        try {
+            deliveries.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class Poll {
+        private final long since;
+        private final int limit;
+        private final CompletableFuture<Optional<CustomerChangeBatch>> result = new CompletableFuture<>();
+
+        private Poll(long since, int limit) {
+            this.since = since;
+            this.limit = limit;
+        }
+    }
+
+    private final class Subscription {
+        private final int limit;
+        private final Subscriber subscriber;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Only touched by the single draining task
+        private long cursor;
+
+        private Subscription(long since, int limit, Subscriber subscriber) {
+            this.cursor = since;
+            this.limit = limit;
+            this.subscriber = subscriber;
+        }
+
+        private void signal() {
+            if (running && subscriptions.contains(this) && draining.compareAndSet(false, true)) {
+                deliveries.execute(this::drain);
+            }
+        }
+
+        private void fail(Exception e) {
+            if (subscriptions.remove(this)) {
+                log.debug("Customer change subscription failed", e);
+                subscriber.failed(e);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (subscriptions.contains(this)) {
+                    Optional<CustomerChangeBatch> batch = read(cursor, limit);
+                    if (batch.isEmpty()) {
+                        subscriptions.remove(this);
+                        subscriber.gone();
+                        return;
+                    }
+                    if (batch.get().changes().isEmpty()) {
+                        break;
+                    }
+                    subscriber.changes(batch.get());
+                    cursor = batch.get().next();
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // A change committed after the last read but before the flag was cleared found it still set
+            if (head.get() > cursor) {
+                signal();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.repository.CustomerChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Appends every CustomerChangedEvent to the customer_change log in the transaction that made the change, so an
+ * entry exists exactly when the change committed. The events of a transaction are collected and written just
+ * before it commits, as one sequence block and one JDBC batch; the counter row is therefore only locked for the
+ * commit itself. Entries older than customer.changes.retention are pruned from the front of the log.
+ */
+@Slf4j
+@Component
+public class CustomerChangeLog {
+    private static final int INSERT_CHUNK_SIZE = 1_000;
+    private static final int PRUNE_CHUNK_SIZE = 10_000;
+
+    private final CustomerChangeRepository customerChangeRepository;
+    private final CustomerChangeFeed customerChangeFeed;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    @Autowired
+    public CustomerChangeLog(CustomerChangeRepository customerChangeRepository, CustomerChangeFeed customerChangeFeed,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${customer.changes.retention:P7D}") Duration retention) {
+        this.customerChangeRepository = customerChangeRepository;
+        this.customerChangeFeed = customerChangeFeed;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The change is already committed on its own, so its entry is too
+            Long lastSeq = transactionTemplate.execute(status -> append(List.of(event)));
+            customerChangeFeed.committed(lastSeq);
+            return;
+        }
+        // Synchronizations of a suspended outer transaction are not listed, so a nested one gets its own
+        PendingChanges pending = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(PendingChanges.class::isInstance)
+                .map(PendingChanges.class::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    PendingChanges created = new PendingChanges();
+                    TransactionSynchronizationManager.registerSynchronization(created);
+                    return created;
+                });
+        pending.events.add(event);
+    }
+
+    private long append(List<CustomerChangedEvent> events) {
+        long lastSeq = customerChangeRepository.allocate(events.size());
+        long firstSeq = lastSeq - events.size() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        for (int start = 0; start < events.size(); start += INSERT_CHUNK_SIZE) {
+            customerChangeRepository.insert(firstSeq + start,
+                    events.subList(start, Math.min(start + INSERT_CHUNK_SIZE, events.size())), now);
+        }
+        return lastSeq;
+    }
+
+    // Consumers still reading pruned entries are told to resync; each chunk is deleted in its own transaction
+    @Scheduled(fixedDelayString = "${customer.changes.prune-interval:PT1H}")
+    public void prune() {
+        OptionalLong upTo = customerChangeRepository.findLastSeqChangedBefore(LocalDateTime.now().minus(retention));
+        OptionalLong first = customerChangeRepository.findFirstSeq();
+        if (upTo.isEmpty() || first.isEmpty()) {
+            return;
+        }
+        long deleted = 0;
+        for (long from = first.getAsLong(); from <= upTo.getAsLong(); from += PRUNE_CHUNK_SIZE) {
+            long to = Math.min(from + PRUNE_CHUNK_SIZE - 1, upTo.getAsLong());
+            long start = from;
+            deleted += transactionTemplate.execute(status -> customerChangeRepository.deleteBetween(start, to));
+        }
+        log.info("Pruned {} customer changes up to sequence {}", deleted, upTo.getAsLong());
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+        private final List<CustomerChangedEvent> events = new ArrayList<>();
+        private long lastSeq;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            lastSeq = append(events);
+        }
+
+        @Override
+        public void afterCommit() {
+            customerChangeFeed.committed(lastSeq);
+        }
+    }
+}
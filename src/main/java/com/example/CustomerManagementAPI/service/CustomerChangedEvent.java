@@ -0,0 +1,18 @@
+package com.example.CustomerManagementAPI.service;
+
+import java.util.UUID;
+
+// Published inside the writing transaction; listeners that must not see uncommitted data use AFTER_COMMIT.
+// version is the one the change wrote, or null where a bulk statement bumped it without reading it back
+public record CustomerChangedEvent(ChangeType type, UUID id, Long version) {
+
+    public CustomerChangedEvent(ChangeType type, UUID id) {
+        this(type, id, null);
+    }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.CustomerManagementAPI.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits CSV text (RFC 4180 quoting) into records, a line at a time. A quoted field may span lines; its line
+ * breaks are read back as '\n'. Blank lines are skipped. Only the splitting happens here, so the reader stays
+ * cheap enough to feed parallel parsing of the field values.
+ */
+final class CustomerCsvReader {
+
+    record CsvRecord(long line, List<String> fields, String text) {
+    }
+
+    private final BufferedReader reader;
+    private final StringBuilder field = new StringBuilder(64);
+    private long lineNumber;
+
+    CustomerCsvReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    // The next record, or null at the end of the input
+    CsvRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        long firstLine = lineNumber;
+        List<String> fields = new ArrayList<>();
+        StringBuilder text = null;
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            // The quoted field continues on the next line
+            String nextLine = reader.readLine();
+            if (nextLine == null) {
+                break;
+            }
+            lineNumber++;
+            if (text == null) {
+                text = new StringBuilder(line);
+            }
+            text.append('\n').append(nextLine);
+            field.append('\n');
+            line = nextLine;
+        }
+        fields.add(field.toString());
+        return new CsvRecord(firstLine, fields, text == null ? line : text.toString());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.CustomerRow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Encodes customer rows as CSV (RFC 4180 quoting, UTF-8) into a direct buffer that is drained to the channel
+ * whenever it fills up. The line builder and the buffer are reused, so the only per-row garbage is the
+ * formatted field values themselves.
+ */
+final class CustomerCsvWriter {
+    static final String HEADER = "id,name,email,annual_spend,last_purchase_date,tier,version\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(256);
+
+    CustomerCsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    void writeHeader() throws IOException {
+        encode(HEADER);
+    }
+
+    void write(CustomerRow customer) throws IOException {
+        line.setLength(0);
+        line.append(customer.id()).append(',');
+        appendText(customer.name());
+        line.append(',');
+        appendText(customer.email());
+        line.append(',');
+        if (customer.annualSpend() != null) {
+            line.append(customer.annualSpend().toPlainString());
+        }
+        line.append(',');
+        if (customer.lastPurchaseDate() != null) {
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(customer.lastPurchaseDate(), line);
+        }
+        line.append(',');
+        if (customer.tier() != null) {
+            line.append(customer.tier().name());
+        }
+        line.append(',');
+        if (customer.version() != null) {
+            line.append(customer.version().longValue());
+        }
+        line.append('\n');
+        encode(line);
+    }
+
+    // A row of arbitrary text fields, quoted like the customer columns
+    void writeRecord(String... fields) throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendText(fields[i]);
+        }
+        line.append('\n');
+        encode(line);
+    }
+
+    // Writes everything buffered so far to the channel
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void appendText(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void encode(CharSequence chars) throws IOException {
+        CharBuffer input = CharBuffer.wrap(chars);
+        encoder.reset();
+        // Malformed input is replaced, so overflow is the only result that needs handling
+        while (encoder.encode(input, buffer, true).isOverflow()) {
+            flush();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flush();
+        }
+    }
+}
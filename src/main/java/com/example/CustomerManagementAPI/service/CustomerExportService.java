@@ -0,0 +1,239 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.example.CustomerManagementAPI.model.ExportState;
+import com.example.CustomerManagementAPI.model.ExportStatus;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports every customer, in id order, to a CSV file on local disk. Exports run one at a time on a background
+ * thread and read the table in keyset chunks, so no request thread or long transaction is held. After each
+ * chunk the file is forced to disk and a checkpoint (last id, rows, file length) is written next to it; an
+ * export interrupted by a crash or shutdown is truncated back to its last checkpoint and resumed on startup.
+ * The export is not a snapshot: rows are read as of the moment their chunk is fetched.
+ */
+@Slf4j
+@Service
+public class CustomerExportService implements SmartLifecycle {
+    private static final String FILE_SUFFIX = ".csv";
+    private static final String PART_SUFFIX = ".csv.part";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private final CustomerRepository customerRepository;
+    private final Path directory;
+    private final int chunkSize;
+    private final Map<UUID, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    @Autowired
+    public CustomerExportService(CustomerRepository customerRepository,
+                                 @Value("${customer.export.dir:${java.io.tmpdir}/customer-exports}") Path directory,
+                                 @Value("${customer.export.chunk-size:5000}") int chunkSize) {
+        this.customerRepository = customerRepository;
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+    }
+
+    public ExportStatus startExport() {
+        ExportJob job = new ExportJob(UUID.randomUUID(), customerRepository.count());
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job, null));
+        return job.status();
+    }
+
+    public Optional<ExportStatus> getExport(UUID id) {
+        return Optional.ofNullable(jobs.get(id)).map(ExportJob::status);
+    }
+
+    // Only completed exports can be downloaded
+    public Optional<Path> getExportFile(UUID id) {
+        ExportJob job = jobs.get(id);
+        return job != null && job.state == ExportState.COMPLETED
+                ? Optional.of(directory.resolve(id + FILE_SUFFIX))
+                : Optional.empty();
+    }
+
+    void run(ExportJob job, Checkpoint checkpoint) {
+        Path part = directory.resolve(job.id + PART_SUFFIX);
+        Path checkpointFile = directory.resolve(job.id + CHECKPOINT_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                CustomerCsvWriter writer = new CustomerCsvWriter(channel);
+                if (checkpoint == null) {
+                    channel.truncate(0);
+                    writer.writeHeader();
+                    writer.flush();
+                    checkpoint = new Checkpoint(null, 0, channel.position(), job.totalRows);
+                    checkpoint.write(checkpointFile);
+                } else {
+                    // Anything past the checkpoint may be a partial chunk; it is written again
+                    channel.truncate(checkpoint.bytes());
+                    channel.position(checkpoint.bytes());
+                }
+                job.progress(checkpoint);
+
+                List<CustomerRow> rows;
+                do {
+                    if (!running) {
+                        log.info("Export {} paused at {} rows; it resumes on the next start", job.id, checkpoint.rows());
+                        return;
+                    }
+                    rows = checkpoint.lastId() == null
+                            ? customerRepository.findFirstRows(Limit.of(chunkSize))
+                            : customerRepository.findRowsAfter(checkpoint.lastId(), Limit.of(chunkSize));
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    for (CustomerRow row : rows) {
+                        writer.write(row);
+                    }
+                    writer.flush();
+                    channel.force(false);
+                    checkpoint = new Checkpoint(rows.getLast().id(), checkpoint.rows() + rows.size(),
+                            channel.position(), checkpoint.totalRows());
+                    checkpoint.write(checkpointFile);
+                    job.progress(checkpoint);
+                } while (rows.size() == chunkSize);
+            }
+            Files.move(part, directory.resolve(job.id + FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            job.state = ExportState.COMPLETED;
+            log.info("Export {} completed: {} rows, {} bytes", job.id, job.rowsWritten, job.bytesWritten);
+        } catch (IOException | RuntimeException e) {
+            // The checkpoint stays, so the export resumes from it on the next start
+            job.error = e.getMessage();
+            job.state = ExportState.FAILED;
+            log.error("Export {} failed after {} rows", job.id, job.rowsWritten, e);
+        }
+    }
+
+    // Completed exports become downloadable again; unfinished ones are resumed from their checkpoint
+    void recover() throws IOException {
+        try (DirectoryStream<Path> checkpoints = Files.newDirectoryStream(directory, "*" + CHECKPOINT_SUFFIX)) {
+            for (Path checkpointFile : checkpoints) {
+                String name = checkpointFile.getFileName().toString();
+                UUID id = UUID.fromString(name.substring(0, name.length() - CHECKPOINT_SUFFIX.length()));
+                Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+                ExportJob job = new ExportJob(id, checkpoint.totalRows());
+                job.progress(checkpoint);
+                jobs.put(id, job);
+                if (Files.exists(directory.resolve(id + FILE_SUFFIX))) {
+                    job.state = ExportState.COMPLETED;
+                } else {
+                    log.info("Resuming export {} after {} rows", id, checkpoint.rows());
+                    executor.execute(() -> run(job, checkpoint));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("customer-export").daemon().factory());
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover exports in " + directory, e);
+        }
+    }
+
+    // A running export stops after its current chunk and keeps its checkpoint
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    static final class ExportJob {
+        private final UUID id;
+        private final long totalRows;
+        private volatile ExportState state = ExportState.RUNNING;
+        private volatile long rowsWritten;
+        private volatile long bytesWritten;
+        private volatile String error;
+
+        ExportJob(UUID id, long totalRows) {
+            this.id = id;
+            this.totalRows = totalRows;
+        }
+
+        private void progress(Checkpoint checkpoint) {
+            rowsWritten = checkpoint.rows();
+            bytesWritten = checkpoint.bytes();
+        }
+
+        ExportStatus status() {
+            return new ExportStatus(id, state, rowsWritten, totalRows, bytesWritten, error);
+        }
+    }
+
+    record Checkpoint(UUID lastId, long rows, long bytes, long totalRows) {
+
+        // Written to a temporary file and moved into place, so a crash leaves either the old or the new checkpoint
+        void write(Path file) throws IOException {
+            Properties properties = new Properties();
+            if (lastId != null) {
+                properties.setProperty("lastId", lastId.toString());
+            }
+            properties.setProperty("rows", Long.toString(rows));
+            properties.setProperty("bytes", Long.toString(bytes));
+            properties.setProperty("totalRows", Long.toString(totalRows));
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, null);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        static Checkpoint read(Path file) throws IOException {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+            String lastId = properties.getProperty("lastId");
+            return new Checkpoint(lastId == null ? null : UUID.fromString(lastId),
+                    Long.parseLong(properties.getProperty("rows")),
+                    Long.parseLong(properties.getProperty("bytes")),
+                    Long.parseLong(properties.getProperty("totalRows")));
+        }
+    }
+}
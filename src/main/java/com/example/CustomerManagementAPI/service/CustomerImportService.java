@@ -0,0 +1,382 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.metrics.CustomerMetrics;
+import com.example.CustomerManagementAPI.model.BatchItemResult;
+import com.example.CustomerManagementAPI.model.BatchItemStatus;
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.ImportState;
+import com.example.CustomerManagementAPI.model.ImportStatus;
+import com.example.CustomerManagementAPI.service.CustomerCsvReader.CsvRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates customers from a CSV or NDJSON upload. The upload is stored in the import directory and imported on a
+ * background thread, one import at a time, so no request thread is held for the length of a large import. It is
+ * read sequentially in chunks of customer.import.commit-size records; each chunk is parsed and validated in
+ * parallel while the previous one is being written, and its valid records are inserted in one transaction (sent as
+ * JDBC batches). Records that do not parse, fail validation or clash with an existing email are written to a
+ * reject file with their line number and reason. Chunks committed before a failure or a shutdown stay committed;
+ * an interrupted import is not resumed.
+ */
+@Slf4j
+@Service
+public class CustomerImportService implements SmartLifecycle {
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String UPLOAD_SUFFIX = ".upload";
+    private static final String REJECTS_SUFFIX = ".rejects.csv";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final CustomerBatchService customerBatchService;
+    private final CustomerMetrics customerMetrics;
+    private final ObjectReader customerReader;
+    private final Path directory;
+    private final int commitSize;
+    private final Map<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    @Autowired
+    public CustomerImportService(CustomerBatchService customerBatchService, CustomerMetrics customerMetrics,
+                                 ObjectMapper objectMapper,
+                                 @Value("${customer.import.dir:${java.io.tmpdir}/customer-imports}") Path directory,
+                                 @Value("${customer.import.commit-size:5000}") int commitSize) {
+        this.customerBatchService = customerBatchService;
+        this.customerMetrics = customerMetrics;
+        this.customerReader = objectMapper.readerFor(CustomerDTO.class);
+        this.directory = directory;
+        this.commitSize = commitSize;
+    }
+
+    /**
+     * Stores the upload and starts importing it in the background. Throws IllegalArgumentException when a CSV
+     * header lacks the name or email column; every other problem is reported through the import status.
+     */
+    public ImportStatus startImport(InputStream input, Format format) throws IOException {
+        UUID id = UUID.randomUUID();
+        Files.createDirectories(directory);
+        Path upload = directory.resolve(id + UPLOAD_SUFFIX);
+        Files.copy(input, upload);
+        try (BufferedReader reader = open(upload)) {
+            if (format == Format.CSV) {
+                new CsvSource(reader);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.delete(upload);
+            throw e;
+        }
+        ImportJob job = new ImportJob(id);
+        jobs.put(id, job);
+        executor.execute(() -> run(job, upload, format));
+        return job.status();
+    }
+
+    public Optional<ImportStatus> getImport(UUID id) {
+        return Optional.ofNullable(jobs.get(id)).map(ImportJob::status);
+    }
+
+    void run(ImportJob job, Path upload, Format format) {
+        try (BufferedReader reader = open(upload)) {
+            importCustomers(job, format == Format.CSV ? new CsvSource(reader) : new NdjsonSource(reader));
+            job.finish(ImportState.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            job.finish(ImportState.FAILED, e.getMessage());
+            log.error("Import {} failed after {} rows", job.id, job.rowsRead, e);
+        } finally {
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException e) {
+                log.warn("Cannot delete upload of import {}", job.id, e);
+            }
+        }
+    }
+
+    private static BufferedReader open(Path upload) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(upload), StandardCharsets.UTF_8),
+                READ_BUFFER_SIZE);
+    }
+
+    private void importCustomers(ImportJob job, RecordSource source) throws IOException {
+        Path rejectFile = directory.resolve(job.id + REJECTS_SUFFIX);
+        try (FileChannel channel = FileChannel.open(rejectFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CustomerCsvWriter rejects = new CustomerCsvWriter(channel);
+            rejects.writeRecord("line", "reason", "record");
+            CompletableFuture<List<ParsedRecord>> pending = null;
+            List<RawRecord> chunk;
+            while (!(chunk = source.read(commitSize)).isEmpty()) {
+                List<RawRecord> records = chunk;
+                job.rowsRead += records.size();
+                CompletableFuture<List<ParsedRecord>> parsing = CompletableFuture.supplyAsync(
+                        () -> records.parallelStream().map(source::parse).toList());
+                if (pending != null) {
+                    write(pending.join(), rejects, job);
+                }
+                pending = parsing;
+            }
+            if (pending != null) {
+                write(pending.join(), rejects, job);
+            }
+            rejects.flush();
+        } finally {
+            customerMetrics.rowsImported(job.rowsImported, job.rowsRejected);
+        }
+        if (job.rowsRejected == 0) {
+            Files.delete(rejectFile);
+        }
+    }
+
+    public Optional<Path> getRejectFile(UUID id) {
+        Path rejectFile = directory.resolve(id + REJECTS_SUFFIX);
+        return Files.isRegularFile(rejectFile) ? Optional.of(rejectFile) : Optional.empty();
+    }
+
+    private void write(List<ParsedRecord> records, CustomerCsvWriter rejects, ImportJob job) throws IOException {
+        if (!running) {
+            throw new IllegalStateException("Stopped by shutdown; chunks committed so far remain");
+        }
+        List<ParsedRecord> valid = new ArrayList<>(records.size());
+        for (ParsedRecord record : records) {
+            if (record.error() == null) {
+                valid.add(record);
+            } else {
+                reject(rejects, record, record.error(), job);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        List<BatchItemResult> results = customerBatchService.createValidatedCustomers(
+                valid.stream().map(ParsedRecord::customer).toList());
+        for (int i = 0; i < results.size(); i++) {
+            BatchItemResult result = results.get(i);
+            if (result.getStatus() == BatchItemStatus.CREATED) {
+                job.rowsImported++;
+            } else {
+                reject(rejects, valid.get(i), result.getStatus() == BatchItemStatus.CONFLICT
+                        ? result.getMessage()
+                        : "failed: " + result.getMessage(), job);
+            }
+        }
+    }
+
+    private static void reject(CustomerCsvWriter rejects, ParsedRecord record, String reason, ImportJob job)
+            throws IOException {
+        rejects.writeRecord(Long.toString(record.line()), reason, record.text());
+        job.rowsRejected++;
+    }
+
+    private ParsedRecord validated(RawRecord record, CustomerDTO customerDTO, LocalDateTime now) {
+        String violations = customerBatchService.validate(customerDTO);
+        if (violations != null) {
+            return new ParsedRecord(record.line(), record.text(), null, violations);
+        }
+        if (customerDTO.getLastPurchaseDate() == null) {
+            customerDTO.setLastPurchaseDate(now);
+        }
+        return new ParsedRecord(record.line(), record.text(), customerDTO, null);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("customer-import").daemon().factory());
+    }
+
+    // A running import stops before writing its next chunk
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Counters are only written by the importing thread
+    static final class ImportJob {
+        private final UUID id;
+        private final long startNanos = System.nanoTime();
+        private volatile ImportState state = ImportState.RUNNING;
+        private volatile long rowsRead;
+        private volatile long rowsImported;
+        private volatile long rowsRejected;
+        private volatile long elapsedNanos = -1;
+        private volatile String error;
+
+        ImportJob(UUID id) {
+            this.id = id;
+        }
+
+        private void finish(ImportState state, String error) {
+            this.elapsedNanos = System.nanoTime() - startNanos;
+            this.error = error;
+            this.state = state;
+            log.info("Import {} {}: {} rows read, {} imported, {} rejected in {} ms", id, state, rowsRead,
+                    rowsImported, rowsRejected, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+
+        ImportStatus status() {
+            long elapsed = elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos;
+            long rowsPerSecond = elapsed == 0 ? 0 : rowsRead * TimeUnit.SECONDS.toNanos(1) / elapsed;
+            return new ImportStatus(id, state, rowsRead, rowsImported, rowsRejected,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), rowsPerSecond, error);
+        }
+    }
+
+    private record RawRecord(long line, String text, List<String> fields) {
+    }
+
+    private record ParsedRecord(long line, String text, CustomerDTO customer, String error) {
+    }
+
+    // read() runs on the importing thread; parse() is called concurrently from the parallel stream
+    private interface RecordSource {
+        List<RawRecord> read(int max) throws IOException;
+
+        ParsedRecord parse(RawRecord record);
+    }
+
+    // Columns are matched by header name, so the export format can be imported as it is; unknown columns are ignored
+    private final class CsvSource implements RecordSource {
+        private final CustomerCsvReader reader;
+        private final int columns;
+        private final int name;
+        private final int email;
+        private final int annualSpend;
+        private final int lastPurchaseDate;
+        private final LocalDateTime now = LocalDateTime.now();
+
+        private CsvSource(BufferedReader input) throws IOException {
+            reader = new CustomerCsvReader(input);
+            CsvRecord header = reader.next();
+            List<String> names = header == null ? List.of() : header.fields().stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            columns = names.size();
+            name = names.indexOf("name");
+            email = names.indexOf("email");
+            annualSpend = names.indexOf("annual_spend");
+            lastPurchaseDate = names.indexOf("last_purchase_date");
+            if (name < 0 || email < 0) {
+                throw new IllegalArgumentException("CSV header must contain name and email columns");
+            }
+        }
+
+        @Override
+        public List<RawRecord> read(int max) throws IOException {
+            List<RawRecord> records = new ArrayList<>(max);
+            CsvRecord record;
+            while (records.size() < max && (record = reader.next()) != null) {
+                records.add(new RawRecord(record.line(), record.text(), record.fields()));
+            }
+            return records;
+        }
+
+        @Override
+        public ParsedRecord parse(RawRecord record) {
+            List<String> fields = record.fields();
+            if (fields.size() != columns) {
+                return new ParsedRecord(record.line(), record.text(), null,
+                        "expected " + columns + " fields but found " + fields.size());
+            }
+            CustomerDTO customerDTO = new CustomerDTO();
+            customerDTO.setName(fields.get(name));
+            customerDTO.setEmail(fields.get(email));
+            try {
+                if (annualSpend >= 0 && !fields.get(annualSpend).isEmpty()) {
+                    customerDTO.setAnnualSpend(new BigDecimal(fields.get(annualSpend)));
+                }
+            } catch (NumberFormatException e) {
+                return new ParsedRecord(record.line(), record.text(), null, "annual_spend: must be a number");
+            }
+            try {
+                if (lastPurchaseDate >= 0 && !fields.get(lastPurchaseDate).isEmpty()) {
+                    customerDTO.setLastPurchaseDate(LocalDateTime.parse(fields.get(lastPurchaseDate)));
+                }
+            } catch (DateTimeParseException e) {
+                return new ParsedRecord(record.line(), record.text(), null,
+                        "last_purchase_date: must be an ISO date-time");
+            }
+            return validated(record, customerDTO, now);
+        }
+    }
+
+    // One JSON object per line; blank lines are skipped
+    private final class NdjsonSource implements RecordSource {
+        private final BufferedReader reader;
+        private final LocalDateTime now = LocalDateTime.now();
+        private long lineNumber;
+
+        private NdjsonSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public List<RawRecord> read(int max) throws IOException {
+            List<RawRecord> records = new ArrayList<>(max);
+            String line;
+            while (records.size() < max && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    records.add(new RawRecord(lineNumber, line, null));
+                }
+            }
+            return records;
+        }
+
+        @Override
+        public ParsedRecord parse(RawRecord record) {
+            try {
+                CustomerDTO customerDTO = customerReader.readValue(record.text());
+                if (customerDTO == null) {
+                    return new ParsedRecord(record.line(), record.text(), null, "expected a JSON object");
+                }
+                return validated(record, customerDTO, now);
+            } catch (JsonProcessingException e) {
+                return new ParsedRecord(record.line(), record.text(), null, "malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.CustomerNameGram;
+import com.example.CustomerManagementAPI.repository.CustomerNameGramRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the customer_name_gram table in step with customer names. Callers must be inside the
+ * transaction that writes the customer, so the index never disagrees with committed names.
+ */
+@Component
+public class CustomerNameIndex {
+    public static final int GRAM_LENGTH = 3;
+
+    private final CustomerNameGramRepository customerNameGramRepository;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public CustomerNameIndex(CustomerNameGramRepository customerNameGramRepository, EntityManager entityManager) {
+        this.customerNameGramRepository = customerNameGramRepository;
+        this.entityManager = entityManager;
+    }
+
+    public static String normalize(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (normalized == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * The customers holding the rarest of the given grams, at most max of them. Each gram's list is read only up
+     * to max entries, so a common gram costs no more than a rare one; the list is complete when it is shorter.
+     */
+    public List<UUID> candidates(Collection<String> grams, int max) {
+        List<UUID> rarest = null;
+        for (String gram : grams) {
+            List<UUID> ids = customerNameGramRepository.findCustomerIdsByGram(gram, Limit.of(max));
+            if (rarest == null || ids.size() < rarest.size()) {
+                rarest = ids;
+            }
+            if (rarest.isEmpty()) {
+                break;
+            }
+        }
+        return rarest == null ? List.of() : rarest;
+    }
+
+    public void index(UUID customerId, String name) {
+        for (String gram : grams(normalize(name))) {
+            // persist rather than save: the key is assigned, and save would SELECT before inserting
+            entityManager.persist(new CustomerNameGram(new CustomerNameGram.Key(customerId, gram)));
+        }
+    }
+
+    public void reindex(UUID customerId, String name) {
+        customerNameGramRepository.deleteByCustomerId(customerId);
+        index(customerId, name);
+    }
+
+    public void remove(UUID customerId) {
+        customerNameGramRepository.deleteByCustomerId(customerId);
+    }
+
+    public void removeAll(Collection<UUID> customerIds) {
+        if (!customerIds.isEmpty()) {
+            customerNameGramRepository.deleteByCustomerIdIn(customerIds);
+        }
+    }
+}
@@ -1,107 +1,370 @@
 package com.example.CustomerManagementAPI.service;
 
+import com.example.CustomerManagementAPI.cache.CustomerCache;
+import com.example.CustomerManagementAPI.cache.CustomerCacheStats;
+import com.example.CustomerManagementAPI.datasource.ReadRouting;
+import com.example.CustomerManagementAPI.metrics.CustomerMetrics;
+import com.example.CustomerManagementAPI.metrics.CustomerMetrics.Operation;
 import com.example.CustomerManagementAPI.model.Customer;
 import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.CustomerPage;
+import com.example.CustomerManagementAPI.model.CustomerPatch;
+import com.example.CustomerManagementAPI.model.CustomerRow;
 import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.model.TierCount;
 import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final BigDecimal PLATINUM_MIN_SPEND = new BigDecimal("10000");
+    public static final BigDecimal GOLD_MIN_SPEND = new BigDecimal("1000");
+    public static final int PLATINUM_WINDOW_MONTHS = 6;
+    public static final int GOLD_WINDOW_MONTHS = 12;
+    public static final int DEFAULT_SEARCH_LIMIT = 50;
+    public static final int MAX_SEARCH_LIMIT = 500;
+    // Trigram candidates re-checked and ranked per search; matches beyond them among very common grams are missed
+    static final int NAME_CANDIDATE_LIMIT = 2_000;
+
     private final CustomerRepository customerRepository;
+    private final CustomerCache customerCache;
+    private final CustomerNameIndex customerNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerMetrics customerMetrics;
 
     @Autowired
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository, CustomerCache customerCache,
+                           CustomerNameIndex customerNameIndex, ApplicationEventPublisher eventPublisher,
+                           CustomerMetrics customerMetrics) {
         this.customerRepository = customerRepository;
+        this.customerCache = customerCache;
+        this.customerNameIndex = customerNameIndex;
+        this.eventPublisher = eventPublisher;
+        this.customerMetrics = customerMetrics;
     }
 
+    @Transactional
     public CustomerDTO createCustomer(CustomerDTO customerDTO) {
-        Customer customer = new Customer();
-        customer.setName(customerDTO.getName());
-        customer.setEmail(customerDTO.getEmail());
-        customer.setAnnualSpend(customerDTO.getAnnualSpend());
-        customer.setLastPurchaseDate(customerDTO.getLastPurchaseDate());
+        long start = customerMetrics.start();
+        try {
+            Customer customer = new Customer();
+            applyDetails(customer, customerDTO);
 
-        Customer savedCustomer = customerRepository.save(customer);
-        return convertToDTO(savedCustomer);
+            Customer savedCustomer = customerRepository.save(customer);
+            // Flush so a duplicate email surfaces here as a DataIntegrityViolationException
+            customerRepository.flush();
+            customerNameIndex.index(savedCustomer.getId(), savedCustomer.getName());
+            eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.CREATED, savedCustomer.getId(),
+                    savedCustomer.getVersion()));
+            return convertToDTO(savedCustomer);
+        } finally {
+            customerMetrics.stop(Operation.CREATE, start);
+        }
     }
 
+    // Query paths run read-only: Hibernate skips dirty-checking snapshots and the flush, and with a replica
+    // configured the connection comes from it
+    @Transactional(readOnly = true)
     public List<CustomerDTO> getAllCustomers() {
         return customerRepository.findAll().stream().map(this::convertToDTO).collect(Collectors.toList());
 
     }
 
+    @Transactional(readOnly = true)
+    public CustomerPage getCustomersPage(String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // Fetch one extra row to learn whether another page exists without a count query
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<Customer> customers = cursor == null || cursor.isEmpty()
+                ? customerRepository.findAllByOrderByIdAsc(fetchLimit)
+                : customerRepository.findByIdGreaterThanOrderByIdAsc(decodeCursor(cursor), fetchLimit);
+        return toPage(customers, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerPage getCustomersByTier(Tier tier, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<Customer> customers = cursor == null || cursor.isEmpty()
+                ? customerRepository.findByTierOrderByIdAsc(tier, fetchLimit)
+                : customerRepository.findByTierAndIdGreaterThanOrderByIdAsc(tier, decodeCursor(cursor), fetchLimit);
+        return toPage(customers, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Tier, Long> getTierCounts() {
+        Map<Tier, Long> counts = new EnumMap<>(Tier.class);
+        for (Tier tier : Tier.values()) {
+            counts.put(tier, 0L);
+        }
+        for (TierCount tierCount : customerRepository.countByTier()) {
+            counts.put(tierCount.tier(), tierCount.count());
+        }
+        return counts;
+    }
+
+    private CustomerPage toPage(List<Customer> customers, int pageSize) {
+        String nextCursor = null;
+        if (customers.size() > pageSize) {
+            customers = customers.subList(0, pageSize);
+            nextCursor = encodeCursor(customers.getLast().getId());
+        }
+        return new CustomerPage(customers.stream().map(this::convertToDTO).collect(Collectors.toList()), nextCursor);
+    }
+
+    // Projections are not managed, so the persistence context stays empty however large the table is
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<CustomerRow> sink) {
+        try (Stream<CustomerRow> customers = customerRepository.streamAllRowsByOrderByIdAsc()) {
+            customers.forEach(sink);
+        }
+    }
+
     public Optional<CustomerDTO> getCustomerById(UUID id) {
-        return customerRepository.findById(id).map(this::convertToDTO);
+        long start = customerMetrics.start();
+        try {
+            CustomerDTO cached = customerCache.get(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            long stamp = customerCache.stamp();
+            // No transaction here, so a cache hit never takes a connection; the lookup itself runs read-only
+            // on the primary, since a lagging replica would put a stale customer into the cache
+            Optional<CustomerDTO> customerDTO = ReadRouting.onPrimary(() -> customerRepository.findById(id))
+                    .map(this::convertToDTO);
+            customerDTO.ifPresent(dto -> customerCache.put(dto, stamp));
+            return customerDTO;
+        } finally {
+            customerMetrics.stop(Operation.GET, start);
+        }
     }
 
+    // Version the next read would return, for conditional requests; never builds a DTO
+    public Optional<Long> getCustomerVersion(UUID id) {
+        CustomerDTO cached = customerCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached.getVersion());
+        }
+        return ReadRouting.onPrimary(() -> customerRepository.findVersionById(id));
+    }
+
+    @Transactional(readOnly = true)
     public List<CustomerDTO> getCustomersByName(String name) {
-        return customerRepository.findByNameContainingIgnoreCase(name).stream().map(this::convertToDTO).collect(Collectors.toList());
+        return getCustomersByName(name, DEFAULT_SEARCH_LIMIT);
+    }
+
+    // Prefix matches rank first, then shorter names; queries shorter than a trigram only match prefixes. Only a
+    // bounded candidate set is ranked, so the cost of a search does not grow with the table: the first prefix
+    // matches in index order, or the holders of the query's rarest trigram
+    @Transactional(readOnly = true)
+    public List<CustomerDTO> getCustomersByName(String name, int limit) {
+        long start = customerMetrics.start();
+        try {
+            String normalized = CustomerNameIndex.normalize(name);
+            if (normalized == null || normalized.isEmpty()) {
+                return List.of();
+            }
+            Limit maxResults = Limit.of(Math.clamp(limit, 1, MAX_SEARCH_LIMIT));
+            String escaped = escapeLike(normalized);
+            Set<String> grams = CustomerNameIndex.grams(normalized);
+            List<Customer> candidates;
+            if (grams.isEmpty()) {
+                candidates = customerRepository.searchByNamePrefix(escaped + "%", maxResults);
+            } else {
+                List<UUID> ids = customerNameIndex.candidates(grams, NAME_CANDIDATE_LIMIT);
+                candidates = ids.isEmpty() ? List.of() : customerRepository.searchByNameAmong(ids, "%" + escaped + "%");
+            }
+            return candidates.stream()
+                    .sorted(Comparator.comparing((Customer customer) -> !customer.getSearchName().startsWith(normalized))
+                            .thenComparingInt(customer -> customer.getSearchName().length())
+                            .thenComparing(Customer::getSearchName))
+                    .limit(maxResults.max())
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+        } finally {
+            customerMetrics.stop(Operation.SEARCH, start);
+        }
     }
 
     public Optional<CustomerDTO> getCustomerByEmail(String email) {
-        return customerRepository.findByEmail(email).map(this::convertToDTO);
+        long start = customerMetrics.start();
+        try {
+            String normalizedEmail = normalizeEmail(email);
+            CustomerDTO cached = customerCache.getByEmail(normalizedEmail);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            long stamp = customerCache.stamp();
+            Optional<CustomerDTO> customerDTO = ReadRouting.onPrimary(() -> customerRepository.findByEmail(normalizedEmail))
+                    .map(this::convertToDTO);
+            customerDTO.ifPresent(dto -> customerCache.put(dto, stamp));
+            return customerDTO;
+        } finally {
+            customerMetrics.stop(Operation.GET, start);
+        }
+    }
+
+    public CustomerCacheStats getCacheStats() {
+        return customerCache.stats();
     }
 
+    @Transactional
     public Optional<CustomerDTO> updateCustomer(UUID id, CustomerDTO customerDTO) {
-        return customerRepository.findById(id)
-                .map(customer -> {
-                    customer.setName(customerDTO.getName());
-                    customer.setEmail(customerDTO.getEmail());
-                    customer.setAnnualSpend(customerDTO.getAnnualSpend());
-                    customer.setLastPurchaseDate(customerDTO.getLastPurchaseDate());
-                    Customer updatedCustomer = customerRepository.save(customer);
-                    return convertToDTO(updatedCustomer);
-                });
+        long start = customerMetrics.start();
+        try {
+            return customerRepository.findById(id)
+                    .map(customer -> {
+                        boolean nameChanged = applyDetails(customer, customerDTO);
+                        Customer updatedCustomer = customerRepository.save(customer);
+                        // Flush so the returned version is the one a follow-up PATCH must present
+                        customerRepository.flush();
+                        if (nameChanged) {
+                            customerNameIndex.reindex(id, updatedCustomer.getName());
+                        }
+                        eventPublisher.publishEvent(
+                                new CustomerChangedEvent(ChangeType.UPDATED, id, updatedCustomer.getVersion()));
+                        return convertToDTO(updatedCustomer);
+                    });
+        } finally {
+            customerMetrics.stop(Operation.UPDATE, start);
+        }
     }
 
+    // Applies only to the given version. Returns false if the customer does not exist; a stale version fails with
+    // an optimistic locking exception
+    @Transactional
+    public boolean patchCustomer(UUID id, CustomerPatch patch, long version) {
+        long start = customerMetrics.start();
+        try {
+            CustomerPatch normalized = new CustomerPatch();
+            normalized.setName(patch.getName());
+            normalized.setEmail(normalizeEmail(patch.getEmail()));
+            normalized.setAnnualSpend(patch.getAnnualSpend());
+            normalized.setLastPurchaseDate(patch.getLastPurchaseDate());
+            if (customerRepository.patch(id, normalized, version, LocalDateTime.now()) == 0) {
+                if (!customerRepository.existsById(id)) {
+                    return false;
+                }
+                throw new ObjectOptimisticLockingFailureException(Customer.class, id);
+            }
+            if (patch.getName() != null) {
+                customerNameIndex.reindex(id, patch.getName());
+            }
+            eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.UPDATED, id, version + 1));
+            return true;
+        } finally {
+            customerMetrics.stop(Operation.UPDATE, start);
+        }
+    }
+
+    @Transactional
     public void deleteCustomer(UUID id) {
-        customerRepository.deleteById(id);
+        long start = customerMetrics.start();
+        try {
+            customerNameIndex.remove(id);
+            customerRepository.deleteById(id);
+            eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.DELETED, id));
+        } finally {
+            customerMetrics.stop(Operation.DELETE, start);
+        }
     }
 
 
+    // Computes the tier and stores it on the entity, so it is persisted with the next save
     public Tier calculateTier(Customer customer) {
-        if (customer.getAnnualSpend() == null) {
-            return Tier.SILVER;
-        }
+        return calculateTier(customer, LocalDateTime.now());
+    }
 
+    Tier calculateTier(Customer customer, LocalDateTime now) {
+        Tier tier = Tier.SILVER;
         BigDecimal annualSpend = customer.getAnnualSpend();
         LocalDateTime lastPurchaseDate = customer.getLastPurchaseDate();
 
-        if (annualSpend.compareTo(new BigDecimal("10000")) >= 0) {
-            if (lastPurchaseDate != null && lastPurchaseDate.isAfter(LocalDateTime.now().minusMonths(6))) {
-                return Tier.PLATINUM;
-            } else {
-                return Tier.SILVER;
-            }
-        } else if (annualSpend.compareTo(new BigDecimal("1000")) >= 0) {
-            if (lastPurchaseDate != null && lastPurchaseDate.isAfter(LocalDateTime.now().minusMonths(12))) {
-                return Tier.GOLD;
-            } else {
-                return Tier.SILVER;
+        if (annualSpend != null && lastPurchaseDate != null) {
+            if (annualSpend.compareTo(PLATINUM_MIN_SPEND) >= 0) {
+                if (lastPurchaseDate.isAfter(now.minusMonths(PLATINUM_WINDOW_MONTHS))) {
+                    tier = Tier.PLATINUM;
+                }
+            } else if (annualSpend.compareTo(GOLD_MIN_SPEND) >= 0) {
+                if (lastPurchaseDate.isAfter(now.minusMonths(GOLD_WINDOW_MONTHS))) {
+                    tier = Tier.GOLD;
+                }
             }
-        } else {
-            return Tier.SILVER;
         }
+        customer.setTier(tier);
+        customerMetrics.tierComputed(tier);
+        return tier;
+    }
+
+    // Returns whether the name changed, in which case the caller must update the name index
+    boolean applyDetails(Customer customer, CustomerDTO customerDTO) {
+        boolean nameChanged = !Objects.equals(customer.getName(), customerDTO.getName());
+        customer.setName(customerDTO.getName());
+        customer.setSearchName(CustomerNameIndex.normalize(customerDTO.getName()));
+        customer.setEmail(normalizeEmail(customerDTO.getEmail()));
+        customer.setAnnualSpend(customerDTO.getAnnualSpend());
+        customer.setLastPurchaseDate(customerDTO.getLastPurchaseDate());
+        calculateTier(customer);
+        return nameChanged;
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    static String encodeCursor(UUID id) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    static UUID decodeCursor(String cursor) {
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
     }
 
-    private CustomerDTO convertToDTO(Customer customer) {
+    CustomerDTO convertToDTO(Customer customer) {
         CustomerDTO dto = new CustomerDTO();
         dto.setId(customer.getId());
         dto.setName(customer.getName());
         dto.setEmail(customer.getEmail());
         dto.setAnnualSpend(customer.getAnnualSpend());
         dto.setLastPurchaseDate(customer.getLastPurchaseDate());
-        dto.setTier(calculateTier(customer));
+        dto.setTier(customer.getTier());
+        dto.setVersion(customer.getVersion());
         return dto;
     }
 
@@ -0,0 +1,314 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.SpendRow;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar in-memory copy of what the spend analytics need: annual spend in cents, last purchase date as an
+ * epoch day and the tier ordinal, in primitive arrays indexed by slot. It is loaded in keyset chunks on first
+ * use and then kept current from CustomerChangedEvents: changed ids are collected and re-read in one query before
+ * the next scan, and deleted customers free their slot. Tier lapses from the recomputation job arrive the same way.
+ * Percentile scans partition the rows by segment in parallel blocks and sort each segment, all on the fork-join
+ * common pool.
+ */
+@Component
+public class CustomerSpendSnapshot {
+    static final long NO_SPEND = Long.MIN_VALUE;
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final byte NO_TIER = -1;
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+    private static final int REFRESH_CHUNK_SIZE = 1_000;
+    private static final int SCAN_BLOCK_SIZE = 1 << 16;
+
+    public enum Segmentation {
+        // Keyed by Tier ordinal
+        TIER,
+        // Keyed by year * 12 + month - 1 of the last purchase
+        MONTH
+    }
+
+    private final CustomerRepository customerRepository;
+    private final Set<UUID> changed = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final StampedLock columnsLock = new StampedLock();
+    // Changes are only collected once a snapshot exists, so an unused snapshot holds nothing
+    private volatile boolean tracking;
+    private volatile boolean stale = true;
+    private Columns columns = new Columns(0);
+
+    @Autowired
+    public CustomerSpendSnapshot(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (tracking) {
+            changed.add(event.id());
+        }
+    }
+
+    /**
+     * The requested quantiles (nearest rank) of annual spend, in cents, per segment. Customers without a spend,
+     * or without the segmenting value, are left out; segments without customers are absent from the map.
+     */
+    public Map<Integer, long[]> percentiles(Segmentation segmentation, double... quantiles) {
+        refresh();
+        long stamp = columnsLock.readLock();
+        try {
+            return columns.percentiles(segmentation, quantiles);
+        } finally {
+            columnsLock.unlockRead(stamp);
+        }
+    }
+
+    void refresh() {
+        refreshLock.lock();
+        try {
+            if (stale) {
+                reload();
+            }
+            applyChanges();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // Built aside and swapped in, so scans keep using the previous columns meanwhile. Changes committed while
+    // loading are collected and applied right after
+    private void reload() {
+        stale = false;
+        tracking = true;
+        changed.clear();
+        Columns fresh = new Columns(Math.max(1024, columns.size));
+        List<SpendRow> rows = customerRepository.findFirstSpendRows(Limit.of(LOAD_CHUNK_SIZE));
+        while (!rows.isEmpty()) {
+            rows.forEach(fresh::put);
+            if (rows.size() < LOAD_CHUNK_SIZE) {
+                break;
+            }
+            rows = customerRepository.findSpendRowsAfter(rows.getLast().id(), Limit.of(LOAD_CHUNK_SIZE));
+        }
+        long stamp = columnsLock.writeLock();
+        try {
+            columns = fresh;
+        } finally {
+            columnsLock.unlockWrite(stamp);
+        }
+    }
+
+    // An id that changes again after being taken here is collected anew and re-read on the next refresh
+    private void applyChanges() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(changed);
+        ids.forEach(changed::remove);
+        for (int start = 0; start < ids.size(); start += REFRESH_CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(start, Math.min(start + REFRESH_CHUNK_SIZE, ids.size()));
+            List<SpendRow> rows = customerRepository.findSpendRowsByIdIn(chunk);
+            Set<UUID> deleted = new HashSet<>(chunk);
+            long stamp = columnsLock.writeLock();
+            try {
+                for (SpendRow row : rows) {
+                    columns.put(row);
+                    deleted.remove(row.id());
+                }
+                deleted.forEach(columns::remove);
+            } finally {
+                columnsLock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return NO_SPEND;
+        }
+        BigDecimal cents = amount.movePointRight(2).setScale(0, RoundingMode.HALF_EVEN);
+        // Beyond the long range, which a numeric(38,2) column allows, the value saturates
+        if (cents.unscaledValue().bitLength() < 64) {
+            return cents.longValue();
+        }
+        return cents.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE + 1;
+    }
+
+    // year * 12 + month - 1 for an epoch day, by the civil-from-days arithmetic of LocalDate.ofEpochDay
+    static int epochMonth(int epochDay) {
+        long zeroDay = epochDay + 719_468L;
+        long era = Math.floorDiv(zeroDay, 146_097);
+        long dayOfEra = zeroDay - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    private static final class Columns {
+        private final Map<UUID, Integer> slots;
+        private long[] cents;
+        private int[] epochDays;
+        private byte[] tiers;
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+        // Slots in use or freed lie below this mark
+        private int size;
+
+        private Columns(int capacity) {
+            slots = new HashMap<>(Math.max(16, capacity * 4 / 3));
+            cents = new long[capacity];
+            epochDays = new int[capacity];
+            tiers = new byte[capacity];
+        }
+
+        private void put(SpendRow row) {
+            Integer slot = slots.get(row.id());
+            if (slot == null) {
+                slot = allocate();
+                slots.put(row.id(), slot);
+            }
+            cents[slot] = toCents(row.annualSpend());
+            epochDays[slot] = row.lastPurchaseDate() == null
+                    ? NO_DATE
+                    : Math.toIntExact(row.lastPurchaseDate().toLocalDate().toEpochDay());
+            tiers[slot] = row.tier() == null ? NO_TIER : (byte) row.tier().ordinal();
+        }
+
+        private void remove(UUID id) {
+            Integer slot = slots.remove(id);
+            if (slot == null) {
+                return;
+            }
+            cents[slot] = NO_SPEND;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+
+        private int allocate() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (size == cents.length) {
+                int capacity = Math.max(1024, size * 2);
+                cents = Arrays.copyOf(cents, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                tiers = Arrays.copyOf(tiers, capacity);
+            }
+            return size++;
+        }
+
+        private Map<Integer, long[]> percentiles(Segmentation segmentation, double[] quantiles) {
+            int base;
+            int segments;
+            IntUnaryOperator segmentOf;
+            if (segmentation == Segmentation.TIER) {
+                base = 0;
+                segments = Tier.values().length;
+                segmentOf = slot -> cents[slot] == NO_SPEND ? -1 : tiers[slot];
+            } else {
+                int[] range = monthRange();
+                if (range == null) {
+                    return Map.of();
+                }
+                base = range[0];
+                segments = range[1] - range[0] + 1;
+                segmentOf = slot -> cents[slot] == NO_SPEND || epochDays[slot] == NO_DATE
+                        ? -1
+                        : epochMonth(epochDays[slot]) - base;
+            }
+
+            // Count per block and segment, then fill each segment's array at per-block offsets without contention
+            int blocks = (size + SCAN_BLOCK_SIZE - 1) / SCAN_BLOCK_SIZE;
+            int[][] counts = new int[blocks][];
+            IntStream.range(0, blocks).parallel().forEach(block -> {
+                int[] blockCounts = new int[segments];
+                for (int slot = block * SCAN_BLOCK_SIZE, end = Math.min(size, slot + SCAN_BLOCK_SIZE); slot < end; slot++) {
+                    int segment = segmentOf.applyAsInt(slot);
+                    if (segment >= 0) {
+                        blockCounts[segment]++;
+                    }
+                }
+                counts[block] = blockCounts;
+            });
+            int[] totals = new int[segments];
+            for (int block = 0; block < blocks; block++) {
+                for (int segment = 0; segment < segments; segment++) {
+                    int count = counts[block][segment];
+                    counts[block][segment] = totals[segment];
+                    totals[segment] += count;
+                }
+            }
+            long[][] values = new long[segments][];
+            for (int segment = 0; segment < segments; segment++) {
+                values[segment] = new long[totals[segment]];
+            }
+            IntStream.range(0, blocks).parallel().forEach(block -> {
+                int[] next = counts[block];
+                for (int slot = block * SCAN_BLOCK_SIZE, end = Math.min(size, slot + SCAN_BLOCK_SIZE); slot < end; slot++) {
+                    int segment = segmentOf.applyAsInt(slot);
+                    if (segment >= 0) {
+                        values[segment][next[segment]++] = cents[slot];
+                    }
+                }
+            });
+
+            Map<Integer, long[]> result = new HashMap<>();
+            for (int segment = 0; segment < segments; segment++) {
+                long[] sorted = values[segment];
+                if (sorted.length == 0) {
+                    continue;
+                }
+                Arrays.parallelSort(sorted);
+                long[] picked = new long[quantiles.length];
+                for (int i = 0; i < quantiles.length; i++) {
+                    int rank = (int) Math.ceil(quantiles[i] * sorted.length);
+                    picked[i] = sorted[Math.clamp(rank - 1, 0, sorted.length - 1)];
+                }
+                result.put(base + segment, picked);
+            }
+            return result;
+        }
+
+        // Lowest and highest epoch month among rows with a spend and a date, or null when there are none
+        private int[] monthRange() {
+            int[] range = IntStream.range(0, size).parallel()
+                    .filter(slot -> cents[slot] != NO_SPEND && epochDays[slot] != NO_DATE)
+                    .map(slot -> epochDays[slot])
+                    .collect(() -> new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE},
+                            (acc, day) -> {
+                                acc[0] = Math.min(acc[0], day);
+                                acc[1] = Math.max(acc[1], day);
+                            },
+                            (left, right) -> {
+                                left[0] = Math.min(left[0], right[0]);
+                                left[1] = Math.max(left[1], right[1]);
+                            });
+            return range[0] > range[1] ? null : new int[]{epochMonth(range[0]), epochMonth(range[1])};
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.PurchaseEvent;
+import com.example.CustomerManagementAPI.model.PurchaseIngestResult;
+import com.example.CustomerManagementAPI.model.PurchaseTotal;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests purchase events through a bounded queue. A single worker drains the queue, coalesces events per
+ * customer over a short window and applies the totals as one batched UPDATE, so a burst of purchases costs a
+ * handful of statements instead of one read-modify-write each. A full queue rejects further events. Events have
+ * been acknowledged when they are queued, so a batch that fails is retried once and then applied per customer;
+ * only the totals that still fail on their own are dropped, and counted.
+ */
+@Slf4j
+@Service
+public class PurchaseAggregator implements SmartLifecycle {
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<PurchaseEvent> queue;
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private final Counter acceptedEvents;
+    private final Counter rejectedEvents;
+    private final Counter unknownCustomers;
+    private final Counter failedTotals;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @Autowired
+    public PurchaseAggregator(CustomerRepository customerRepository, PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                              @Value("${customer.purchases.queue-capacity:10000}") int queueCapacity,
+                              @Value("${customer.purchases.window:PT0.2S}") Duration window,
+                              @Value("${customer.purchases.max-batch-size:5000}") int maxBatchSize) {
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+
+        this.acceptedEvents = Counter.builder("customer.purchases.events").tag("outcome", "accepted")
+                .register(meterRegistry);
+        this.rejectedEvents = Counter.builder("customer.purchases.events").tag("outcome", "rejected")
+                .register(meterRegistry);
+        this.unknownCustomers = Counter.builder("customer.purchases.unknown")
+                .description("Coalesced totals dropped because the customer does not exist")
+                .register(meterRegistry);
+        this.failedTotals = Counter.builder("customer.purchases.failed")
+                .description("Coalesced totals dropped because applying them failed, also on their own")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("customer.purchases.flush").register(meterRegistry);
+        Gauge.builder("customer.purchases.queued", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Queues events in order and stops at the first one that does not fit
+    public PurchaseIngestResult submit(List<PurchaseEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        int accepted = 0;
+        for (PurchaseEvent event : events) {
+            if (event.getPurchasedAt() == null) {
+                event.setPurchasedAt(now);
+            }
+            if (!queue.offer(event)) {
+                break;
+            }
+            accepted++;
+        }
+        acceptedEvents.increment(accepted);
+        rejectedEvents.increment(events.size() - accepted);
+        return new PurchaseIngestResult(accepted, events.size() - accepted);
+    }
+
+    static List<PurchaseTotal> coalesce(List<PurchaseEvent> events) {
+        Map<UUID, PurchaseTotal> totals = new LinkedHashMap<>();
+        for (PurchaseEvent event : events) {
+            totals.merge(event.getCustomerId(),
+                    new PurchaseTotal(event.getCustomerId(), event.getAmount(), event.getPurchasedAt()),
+                    (a, b) -> new PurchaseTotal(a.customerId(), a.amount().add(b.amount()),
+                            a.lastPurchaseDate().isAfter(b.lastPurchaseDate()) ? a.lastPurchaseDate() : b.lastPurchaseDate()));
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    void flush(List<PurchaseEvent> events) {
+        List<PurchaseTotal> totals = coalesce(events);
+        long start = System.nanoTime();
+        try {
+            if (apply(totals) || apply(totals)) {
+                return;
+            }
+            // A bad row or a lasting lock conflict: apply one by one so only the failing totals are lost
+            for (PurchaseTotal total : totals) {
+                if (!apply(List.of(total))) {
+                    failedTotals.increment();
+                    log.error("Dropped purchase total of {} for customer {}", total.amount(), total.customerId());
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Applies the totals in one transaction; false if it rolled back
+    private boolean apply(List<PurchaseTotal> totals) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] updated = customerRepository.applyPurchases(totals, LocalDateTime.now());
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        unknownCustomers.increment();
+                    } else {
+                        eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.UPDATED, totals.get(i).customerId()));
+                    }
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Applying purchase totals for {} customers failed", totals.size(), e);
+            return false;
+        }
+    }
+
+    private void run() {
+        List<PurchaseEvent> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PurchaseEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < maxBatchSize && running) {
+                    long remaining = deadline - System.nanoTime();
+                    PurchaseEvent next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                // On shutdown the window is skipped, but whatever is already queued is still applied
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "purchase-aggregator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server, so no request can queue an event after the final drain
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tiers only change over time by lapsing to SILVER once the last purchase falls out of the
+ * PLATINUM or GOLD window; every other change happens on write. This job applies those lapses
+ * in index-driven chunks of bulk updates and backfills rows that were stored without a tier. Each
+ * chunk commits in its own transaction, so locks and pending events are held for one chunk only,
+ * and each customer it changes is published as a CustomerChangedEvent, delivered on that commit.
+ */
+@Slf4j
+@Component
+public class TierRecomputationJob {
+    private static final int CHUNK_SIZE = 500;
+
+    private final CustomerRepository customerRepository;
+    private final CustomerService customerService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public TierRecomputationJob(CustomerRepository customerRepository, CustomerService customerService,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher) {
+        this.customerRepository = customerRepository;
+        this.customerService = customerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(fixedDelayString = "${customer.tier.recompute-interval:PT5M}")
+    public void recomputeTiers() {
+        LocalDateTime now = LocalDateTime.now();
+        int platinum = downgradeExpired(Tier.PLATINUM, now.minusMonths(CustomerService.PLATINUM_WINDOW_MONTHS));
+        int gold = downgradeExpired(Tier.GOLD, now.minusMonths(CustomerService.GOLD_WINDOW_MONTHS));
+        int backfilled = backfillMissingTiers(now);
+        if (platinum + gold + backfilled > 0) {
+            log.info("Tier recomputation: {} PLATINUM and {} GOLD customers lapsed, {} backfilled",
+                    platinum, gold, backfilled);
+        }
+    }
+
+    // Downgraded rows no longer match, so each chunk query picks up where the previous one left off
+    private int downgradeExpired(Tier tier, LocalDateTime cutoff) {
+        int total = 0;
+        Integer changed;
+        while ((changed = transactionTemplate.execute(status -> downgradeChunk(tier, cutoff))) != null) {
+            total += changed;
+        }
+        return total;
+    }
+
+    // Null once no expired rows are left
+    private Integer downgradeChunk(Tier tier, LocalDateTime cutoff) {
+        List<UUID> ids = customerRepository.findExpiredTierIds(tier, cutoff, Limit.of(CHUNK_SIZE));
+        if (ids.isEmpty()) {
+            return null;
+        }
+        int changed = customerRepository.downgradeTier(ids, tier, cutoff);
+        // Rows purchased from or re-tiered since the select were skipped; only the changed ones get an event
+        List<UUID> downgraded = changed == ids.size() ? ids : customerRepository.findDowngradedIds(ids, cutoff);
+        downgraded.forEach(id -> eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.UPDATED, id)));
+        return changed;
+    }
+
+    private int backfillMissingTiers(LocalDateTime now) {
+        int total = 0;
+        int changed;
+        while ((changed = transactionTemplate.execute(status -> backfillChunk(now))) > 0) {
+            total += changed;
+        }
+        return total;
+    }
+
+    // The tiers set here are written when the chunk's transaction commits
+    private int backfillChunk(LocalDateTime now) {
+        List<Customer> customers = customerRepository.findByTierIsNull(Limit.of(CHUNK_SIZE));
+        customers.forEach(customer -> {
+            customerService.calculateTier(customer, now);
+            eventPublisher.publishEvent(new CustomerChangedEvent(ChangeType.UPDATED, customer.getId()));
+        });
+        return customers.size();
+    }
+}
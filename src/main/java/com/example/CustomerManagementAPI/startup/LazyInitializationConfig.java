@@ -0,0 +1,44 @@
+package com.example.CustomerManagementAPI.startup;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Defers beans that no request on the customer endpoints needs, such as the OpenAPI documentation and the H2
+ * console, until something first asks for them. Unlike spring.main.lazy-initialization this leaves the data
+ * source, JPA and the controllers eager, so their cost is not simply moved onto the first request. Active when
+ * customer.startup.lazy-packages lists the packages whose beans (or whose declaring configuration) to defer.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "customer.startup.lazy-packages")
+public class LazyInitializationConfig {
+
+    // Static so that it runs before the other bean definitions are instantiated
+    @Bean
+    public static BeanFactoryPostProcessor lazyPackagesPostProcessor(
+            @Value("${customer.startup.lazy-packages}") String[] packages) {
+        List<String> prefixes = List.of(packages);
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE) {
+                    continue;
+                }
+                // @Bean methods carry no class name of their own; their configuration class decides
+                String className = definition.getFactoryBeanName() != null
+                        && beanFactory.containsBeanDefinition(definition.getFactoryBeanName())
+                        ? beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName()
+                        : definition.getBeanClassName();
+                if (className != null && prefixes.stream().anyMatch(className::startsWith)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+}
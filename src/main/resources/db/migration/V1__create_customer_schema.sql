@@ -0,0 +1,25 @@
+create table customer (
+    id                 uuid          not null,
+    name               varchar(255)  not null,
+    search_name        varchar(255),
+    email              varchar(255)  not null,
+    annual_spend       numeric(38,2),
+    last_purchase_date timestamp(6),
+    tier               varchar(16),
+    version            bigint        default 0 not null,
+    constraint pk_customer primary key (id),
+    constraint uk_customer_email unique (email),
+    constraint ck_customer_tier check (tier in ('SILVER', 'GOLD', 'PLATINUM'))
+);
+
+create index idx_customer_tier_last_purchase on customer (tier, last_purchase_date);
+create index idx_customer_tier_id on customer (tier, id);
+create index idx_customer_search_name on customer (search_name);
+
+create table customer_name_gram (
+    customer_id uuid         not null,
+    gram        varchar(255) not null,
+    constraint pk_customer_name_gram primary key (customer_id, gram)
+);
+
+create index idx_customer_name_gram_gram on customer_name_gram (gram, customer_id);
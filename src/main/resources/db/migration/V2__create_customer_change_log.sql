@@ -0,0 +1,21 @@
+-- Ordered log of customer writes for consumers that sync incrementally. Sequence numbers are allocated in blocks
+-- from customer_change_seq, whose row stays locked until the writing transaction commits, so they are dense and
+-- become visible in order
+create table customer_change (
+    seq         bigint       not null,
+    customer_id uuid         not null,
+    change_type varchar(16)  not null,
+    changed_at  timestamp(6) not null,
+    constraint pk_customer_change primary key (seq),
+    constraint ck_customer_change_type check (change_type in ('CREATED', 'UPDATED', 'DELETED'))
+);
+
+create index idx_customer_change_changed_at on customer_change (changed_at);
+
+create table customer_change_seq (
+    id       int    not null,
+    last_seq bigint not null,
+    constraint pk_customer_change_seq primary key (id)
+);
+
+insert into customer_change_seq (id, last_seq) values (1, 0);
@@ -0,0 +1,201 @@
+package com.example.CustomerManagementAPI.cache;
+
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CustomerCacheTest {
+
+    private CustomerCache customerCache;
+
+    // A second node on the same invalidation channel
+    private CustomerCache otherNode;
+
+    private CustomerDTO customerDTO;
+
+    @BeforeEach
+    void setUp() {
+        String channel = UUID.randomUUID().toString();
+        customerCache = newCache(channel, "node-a");
+        otherNode = newCache(channel, "node-b");
+        customerDTO = customer(3L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerCache.stop();
+        otherNode.stop();
+    }
+
+    private static CustomerCache newCache(String channel, String nodeId) {
+        CustomerCache cache = new CustomerCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1),
+                new InProcessInvalidationTransport(channel), nodeId);
+        cache.start();
+        return cache;
+    }
+
+    private CustomerDTO customer(Long version) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(customerDTO == null ? UUID.randomUUID() : customerDTO.getId());
+        customer.setEmail("test@example.com");
+        customer.setTier(Tier.SILVER);
+        customer.setVersion(version);
+        return customer;
+    }
+
+    @Test
+    void putAndGet() {
+        customerCache.put(customerDTO, customerCache.stamp());
+
+        assertEquals(customerDTO, customerCache.get(customerDTO.getId()));
+        assertEquals(customerDTO, customerCache.getByEmail("test@example.com"));
+        assertNull(customerCache.getByEmail("other@example.com"));
+    }
+
+    @Test
+    void invalidate() {
+        customerCache.put(customerDTO, customerCache.stamp());
+
+        customerCache.invalidate(customerDTO.getId());
+
+        assertNull(customerCache.get(customerDTO.getId()));
+        assertNull(customerCache.getByEmail("test@example.com"));
+    }
+
+    @Test
+    void put_RejectedAfterConcurrentInvalidation() {
+        long stamp = customerCache.stamp();
+        customerCache.invalidate(UUID.randomUUID());
+
+        customerCache.put(customerDTO, stamp);
+
+        assertNull(customerCache.get(customerDTO.getId()));
+    }
+
+    @Test
+    void onCustomerChanged_InvalidatesTheOtherNodes() throws InterruptedException {
+        customerCache.put(customerDTO, customerCache.stamp());
+        otherNode.put(customerDTO, otherNode.stamp());
+
+        customerCache.onCustomerChanged(new CustomerChangedEvent(ChangeType.UPDATED, customerDTO.getId(), 4L));
+
+        assertNull(customerCache.get(customerDTO.getId()));
+        assertTrue(awaitEvicted(otherNode, customerDTO.getId()));
+        assertNull(otherNode.getByEmail("test@example.com"));
+    }
+
+    @Test
+    void transport_DefinedBeanIsUsedInsteadOfTheInProcessOne() {
+        InvalidationTransport transport = mock(InvalidationTransport.class);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("brokerTransport", transport);
+
+        CustomerCache cache = new CustomerCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1),
+                beanFactory.getBeanProvider(InvalidationTransport.class), "unused", "node-c");
+        cache.start();
+
+        verify(transport).subscribe(any());
+    }
+
+    @Test
+    void transport_FallsBackToTheInProcessChannel() throws InterruptedException {
+        String channel = UUID.randomUUID().toString();
+        CustomerCache cache = new CustomerCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1),
+                new StaticListableBeanFactory().getBeanProvider(InvalidationTransport.class), channel, "node-c");
+        CustomerCache peer = newCache(channel, "node-d");
+        cache.start();
+        try {
+            peer.put(customerDTO, peer.stamp());
+
+            cache.onCustomerChanged(new CustomerChangedEvent(ChangeType.UPDATED, customerDTO.getId(), 4L));
+
+            assertTrue(awaitEvicted(peer, customerDTO.getId()));
+        } finally {
+            cache.stop();
+            peer.stop();
+        }
+    }
+
+    @Test
+    void apply_OlderVersionDoesNotEvictNewerEntry() {
+        CustomerDTO newer = customer(5L);
+        customerCache.apply(new CacheInvalidation("node-b", newer.getId(), 5L));
+        customerCache.put(newer, customerCache.stamp());
+
+        // Arrives after the change that wrote version 5
+        customerCache.apply(new CacheInvalidation("node-b", newer.getId(), 4L));
+
+        assertEquals(newer, customerCache.get(newer.getId()));
+    }
+
+    @Test
+    void put_RejectedBelowTheVersionFloor() {
+        long stamp = customerCache.stamp();
+        customerCache.apply(new CacheInvalidation("node-b", customerDTO.getId(), 4L));
+
+        // A load that read the row before version 4 committed
+        customerCache.put(customerDTO, stamp);
+        assertNull(customerCache.get(customerDTO.getId()));
+
+        CustomerDTO current = customer(4L);
+        customerCache.put(current, customerCache.stamp());
+        assertNotNull(customerCache.get(current.getId()));
+
+        customerCache.apply(new CacheInvalidation("node-b", current.getId(), CacheInvalidation.DELETED));
+        assertNull(customerCache.get(current.getId()));
+        customerCache.put(current, customerCache.stamp());
+        assertNull(customerCache.get(current.getId()));
+    }
+
+    private static boolean awaitEvicted(CustomerCache cache, UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (cache.get(id) != null) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Test
+    void put_LapsedTierIsNotRetained() {
+        customerDTO.setTier(Tier.PLATINUM);
+        customerDTO.setLastPurchaseDate(LocalDateTime.now().minusMonths(7));
+
+        customerCache.put(customerDTO, customerCache.stamp());
+
+        assertNull(customerCache.get(customerDTO.getId()));
+    }
+
+    @Test
+    void stats() {
+        customerCache.put(customerDTO, customerCache.stamp());
+        customerCache.get(customerDTO.getId());
+        customerCache.get(UUID.randomUUID());
+        customerCache.getByEmail("missing@example.com");
+
+        CustomerCacheStats stats = customerCache.stats();
+
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1.0 / 3, stats.hitRate(), 1e-9);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.CustomerManagementAPI.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CompressionThresholdFilterTest {
+
+    private final CompressionThresholdFilter filter = new CompressionThresholdFilter(DataSize.ofBytes(16));
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers/42");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return request;
+    }
+
+    @Test
+    void smallBodyIsSentWithItsLength() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(), response, (req, res) -> {
+            res.getOutputStream().write("{\"id\":42}".getBytes());
+            res.getOutputStream().flush();
+        });
+
+        assertEquals(9, response.getContentLength());
+        assertEquals("{\"id\":42}", response.getContentAsString());
+    }
+
+    @Test
+    void largeBodyPassesThroughWithoutLength() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(), response, (req, res) -> {
+            for (int i = 0; i < 10; i++) {
+                res.getWriter().write("{\"id\":" + i + "}");
+            }
+        });
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(80, response.getContentAsString().length());
+    }
+
+    @Test
+    void asynchronousResponseIsNotHeldBack() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.startAsync(req, res);
+            res.getOutputStream().write("[".getBytes());
+        });
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("[", response.getContentAsString());
+    }
+
+    @Test
+    void nonBlockingWriterUsesTheResponseStream() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<WriteListener> registered = new AtomicReference<>();
+        WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        };
+
+        filter.doFilter(request(), new NonBlockingResponse(response, registered), (req, res) -> {
+            res.getOutputStream().write("[".getBytes());
+            res.getOutputStream().setWriteListener(listener);
+            assertFalse(res.getOutputStream().isReady());
+        });
+
+        assertSame(listener, registered.get());
+        assertEquals("[", response.getContentAsString());
+    }
+
+    // The mock response's stream supports blocking writes only
+    private static final class NonBlockingResponse extends HttpServletResponseWrapper {
+        private final ServletOutputStream outputStream;
+
+        private NonBlockingResponse(MockHttpServletResponse response, AtomicReference<WriteListener> registered) {
+            super(response);
+            this.outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    response.getOutputStream().write(b);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return false;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    registered.set(writeListener);
+                }
+            };
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+}
@@ -1,27 +1,56 @@
 package com.example.CustomerManagementAPI.controller;
 
+import com.example.CustomerManagementAPI.model.BatchItemResult;
+import com.example.CustomerManagementAPI.model.BatchItemStatus;
+import com.example.CustomerManagementAPI.model.Customer;
 import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.CustomerPage;
+import com.example.CustomerManagementAPI.model.CustomerPatch;
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.example.CustomerManagementAPI.model.PurchaseEvent;
+import com.example.CustomerManagementAPI.model.PurchaseIngestResult;
 import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.service.CustomerBatchService;
 import com.example.CustomerManagementAPI.service.CustomerService;
+import com.example.CustomerManagementAPI.service.PurchaseAggregator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
 class CustomerControllerTest {
@@ -29,6 +58,15 @@ class CustomerControllerTest {
     @Mock
     private CustomerService customerService;
 
+    @Mock
+    private CustomerBatchService customerBatchService;
+
+    @Mock
+    private PurchaseAggregator purchaseAggregator;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private CustomerController customerController;
 
@@ -46,6 +84,23 @@ class CustomerControllerTest {
         customerDTO.setTier(Tier.GOLD);
     }
 
+    @Test
+    void getCustomers_NameWithLimitOrTierRoutesToNameSearch() throws Exception {
+        when(customerService.getCustomersByName("bob", 10)).thenReturn(List.of(customerDTO));
+        when(customerService.getCustomersByName("bob", CustomerService.DEFAULT_SEARCH_LIMIT)).thenReturn(List.of());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(customerController).build();
+
+        mockMvc.perform(get("/customers").param("name", "bob").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("John Doe"));
+        mockMvc.perform(get("/customers").param("name", "bob").param("tier", "GOLD"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        verify(customerService, never()).getCustomersPage(any(), anyInt());
+        verify(customerService, never()).getCustomersByTier(any(), any(), anyInt());
+    }
+
     @Test
     void createCustomer() {
 
@@ -55,29 +110,230 @@ class CustomerControllerTest {
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals("Test", response.getBody().getName());
+        assertEquals("John Doe", response.getBody().getName());
     }
 
     @Test
-    void getAllCustomers() {
-        // Create test data
-        CustomerDTO customerDTO1 = new CustomerDTO();
-        customerDTO1.setName("Customer 1");
+    void updateCustomer_DuplicateEmail() {
+        UUID id = UUID.randomUUID();
+        when(customerService.updateCustomer(id, customerDTO)).thenThrow(new DataIntegrityViolationException("uk_customer_email"));
 
-        CustomerDTO customerDTO2 = new CustomerDTO();
-        customerDTO2.setName("Customer 2");
+        ResponseEntity<Optional<CustomerDTO>> response = customerController.updateCustomer(id, customerDTO);
 
-        when(customerService.getAllCustomers()).thenReturn(List.of(customerDTO1, customerDTO2));
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
 
-        ResponseEntity<List<CustomerDTO>> response = customerController.getAllCustomers();
+    @Test
+    void patchCustomer() {
+        UUID id = UUID.randomUUID();
+        CustomerPatch patch = new CustomerPatch();
+        patch.setLastPurchaseDate(LocalDateTime.now());
+        patch.setVersion(3L);
+        when(customerService.patchCustomer(id, patch, 3L)).thenReturn(true);
+
+        assertEquals(HttpStatus.NO_CONTENT, customerController.patchCustomer(id, null, patch).getStatusCode());
+    }
+
+    @Test
+    void patchCustomer_VersionFromIfMatch() {
+        UUID id = UUID.randomUUID();
+        CustomerPatch patch = new CustomerPatch();
+        when(customerService.patchCustomer(id, patch, 7L)).thenReturn(true);
+
+        assertEquals(HttpStatus.NO_CONTENT, customerController.patchCustomer(id, "W/\"7\"", patch).getStatusCode());
+    }
+
+    @Test
+    void patchCustomer_NotFound() {
+        UUID id = UUID.randomUUID();
+        CustomerPatch patch = new CustomerPatch();
+        patch.setVersion(0L);
+        when(customerService.patchCustomer(id, patch, 0L)).thenReturn(false);
+
+        assertEquals(HttpStatus.NOT_FOUND, customerController.patchCustomer(id, null, patch).getStatusCode());
+    }
+
+    @Test
+    void patchCustomer_WithoutVersionIsRefused() {
+        CustomerPatch patch = new CustomerPatch();
+        patch.setName("Renamed");
+
+        assertEquals(HttpStatus.PRECONDITION_REQUIRED,
+                customerController.patchCustomer(UUID.randomUUID(), null, patch).getStatusCode());
+        verifyNoInteractions(customerService);
+    }
+
+    @Test
+    void patchCustomer_IfMatchNotNamingTheCurrentVersion() {
+        UUID id = UUID.randomUUID();
+        CustomerPatch patch = new CustomerPatch();
+        patch.setVersion(3L);
+        assertEquals(HttpStatus.PRECONDITION_FAILED, customerController.patchCustomer(id, "*", patch).getStatusCode());
+        assertEquals(HttpStatus.PRECONDITION_FAILED,
+                customerController.patchCustomer(id, "W/\"4\"", patch).getStatusCode());
+
+        when(customerService.patchCustomer(id, patch, 3L))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Customer.class, id));
+        assertEquals(HttpStatus.PRECONDITION_FAILED,
+                customerController.patchCustomer(id, "\"3\"", patch).getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, customerController.patchCustomer(id, null, patch).getStatusCode());
+    }
+
+    @Test
+    void recordPurchases() {
+        List<PurchaseEvent> events = List.of(new PurchaseEvent(UUID.randomUUID(), new BigDecimal("25"), null));
+        when(purchaseAggregator.submit(events)).thenReturn(new PurchaseIngestResult(1, 0));
+
+        ResponseEntity<PurchaseIngestResult> response = customerController.recordPurchases(events);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    }
+
+    @Test
+    void recordPurchases_QueueFull() {
+        List<PurchaseEvent> events = List.of(
+                new PurchaseEvent(UUID.randomUUID(), new BigDecimal("25"), null),
+                new PurchaseEvent(UUID.randomUUID(), new BigDecimal("40"), null));
+        when(purchaseAggregator.submit(events)).thenReturn(new PurchaseIngestResult(1, 1));
+
+        ResponseEntity<PurchaseIngestResult> response = customerController.recordPurchases(events);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, response.getBody().accepted());
+    }
+
+    @Test
+    void recordPurchases_MissingAmount() {
+        List<PurchaseEvent> events = List.of(new PurchaseEvent(UUID.randomUUID(), null, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, customerController.recordPurchases(events).getStatusCode());
+        verifyNoInteractions(purchaseAggregator);
+    }
+
+    @Test
+    void getAllCustomers() throws Exception {
+        // Create test data
+        CustomerRow customer1 = new CustomerRow(UUID.randomUUID(), "Customer 1", null, null, null, null, 0L);
+        CustomerRow customer2 = new CustomerRow(UUID.randomUUID(), "Customer 2", null, null, null, null, 0L);
+
+        doAnswer(invocation -> {
+            Consumer<CustomerRow> sink = invocation.getArgument(0);
+            sink.accept(customer1);
+            sink.accept(customer2);
+            return null;
+        }).when(customerService).streamAllCustomers(any());
+
+        ResponseEntity<StreamingResponseBody> response = customerController.getAllCustomers(null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().size());
-        assertEquals("Customer 1", response.getBody().get(0).getName());
-        assertEquals("Customer 2", response.getBody().get(1).getName());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        List<CustomerDTO> customers = objectMapper.readValue(out.toByteArray(), new TypeReference<>() {});
+        assertEquals(2, customers.size());
+        assertEquals("Customer 1", customers.get(0).getName());
+        assertEquals("Customer 2", customers.get(1).getName());
+
+        verify(customerService, times(1)).streamAllCustomers(any());
+    }
+
+    @Test
+    void getAllCustomers_Ndjson() throws Exception {
+        CustomerRow customer1 = new CustomerRow(UUID.randomUUID(), "Customer 1", null, null, null, null, 0L);
+
+        doAnswer(invocation -> {
+            Consumer<CustomerRow> sink = invocation.getArgument(0);
+            sink.accept(customer1);
+            sink.accept(customer1);
+            return null;
+        }).when(customerService).streamAllCustomers(any());
+
+        ResponseEntity<StreamingResponseBody> response =
+                customerController.getAllCustomers(CustomerController.APPLICATION_NDJSON_VALUE);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Customer 1", objectMapper.readValue(lines[1], CustomerDTO.class).getName());
+    }
+
+    @Test
+    void getAllCustomers_Cbor() throws Exception {
+        CustomerRow customer = new CustomerRow(UUID.randomUUID(), "Customer 1", "customer1@example.com",
+                new BigDecimal("1234.50"), LocalDateTime.of(2024, 5, 17, 9, 30), Tier.GOLD, 2L);
+
+        doAnswer(invocation -> {
+            Consumer<CustomerRow> sink = invocation.getArgument(0);
+            sink.accept(customer);
+            return null;
+        }).when(customerService).streamAllCustomers(any());
+
+        ResponseEntity<StreamingResponseBody> response =
+                customerController.getAllCustomers(MediaType.APPLICATION_CBOR_VALUE);
+
+        assertEquals(MediaType.APPLICATION_CBOR, response.getHeaders().getContentType());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).findAndRegisterModules();
+        List<CustomerDTO> customers = cborMapper.readValue(out.toByteArray(), new TypeReference<>() {});
+        assertEquals(1, customers.size());
+        assertEquals(customer.id(), customers.get(0).getId());
+        assertEquals(customer.lastPurchaseDate(), customers.get(0).getLastPurchaseDate());
+        assertEquals(customer.annualSpend(), customers.get(0).getAnnualSpend());
+    }
+
+    @Test
+    void streamContentType_HonoursQualityValues() {
+        assertEquals(MediaType.APPLICATION_JSON,
+                CustomerController.streamContentType("application/json, application/cbor;q=0.1"));
+        assertEquals(MediaType.APPLICATION_CBOR,
+                CustomerController.streamContentType("application/json;q=0.5, application/cbor"));
+        assertEquals(MediaType.APPLICATION_JSON, CustomerController.streamContentType("application/cbor;q=0"));
+        assertEquals(CustomerController.APPLICATION_NDJSON_VALUE, CustomerController.streamContentType(
+                "*/*;q=0.8, application/json;q=0, application/x-ndjson;q=0.5").toString());
+        assertEquals(MediaType.APPLICATION_JSON, CustomerController.streamContentType("application/*"));
+    }
 
-        verify(customerService, times(1)).getAllCustomers();
+    @Test
+    void getCustomersPage() {
+        CustomerPage page = new CustomerPage(List.of(customerDTO), "next");
+        when(customerService.getCustomersPage(null, 10)).thenReturn(page);
+
+        ResponseEntity<CustomerPage> response = customerController.getCustomersPage(10, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("next", response.getBody().getNextCursor());
+    }
+
+    @Test
+    void getCustomersPage_InvalidCursor() {
+        when(customerService.getCustomersPage("bogus", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<CustomerPage> response = customerController.getCustomersPage(10, "bogus");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void getCustomersByTier() {
+        when(customerService.getCustomersByTier(Tier.GOLD, null, 100)).thenReturn(new CustomerPage(List.of(customerDTO), null));
+
+        ResponseEntity<CustomerPage> response = customerController.getCustomersByTier(Tier.GOLD, 100, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getItems().size());
+    }
+
+    @Test
+    void getTierCounts() {
+        when(customerService.getTierCounts()).thenReturn(Map.of(Tier.SILVER, 3L, Tier.GOLD, 2L, Tier.PLATINUM, 1L));
+
+        ResponseEntity<Map<Tier, Long>> response = customerController.getTierCounts();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2L, response.getBody().get(Tier.GOLD));
     }
 
     @Test
@@ -89,7 +345,7 @@ class CustomerControllerTest {
 
         when(customerService.getCustomerById(customerId)).thenReturn(Optional.of(customerDTO));
 
-        ResponseEntity<CustomerDTO> response = customerController.getCustomerById(customerId);
+        ResponseEntity<CustomerDTO> response = customerController.getCustomerById(customerId, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -102,11 +358,52 @@ class CustomerControllerTest {
 
         when(customerService.getCustomerById(id)).thenReturn(Optional.empty());
 
-        ResponseEntity<CustomerDTO> response = customerController.getCustomerById(id);
+        ResponseEntity<CustomerDTO> response = customerController.getCustomerById(id, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void getCustomerById_NotModified() {
+        UUID id = UUID.randomUUID();
+        when(customerService.getCustomerVersion(id)).thenReturn(Optional.of(4L));
+
+        ResponseEntity<CustomerDTO> response = customerController.getCustomerById(id, "\"3\", W/\"4\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("W/\"4\"", response.getHeaders().getETag());
+        verify(customerService, never()).getCustomerById(any());
+    }
+
+    @Test
+    void getCustomerById_StaleETag() {
+        UUID id = UUID.randomUUID();
+        customerDTO.setVersion(5L);
+        when(customerService.getCustomerVersion(id)).thenReturn(Optional.of(5L));
+        when(customerService.getCustomerById(id)).thenReturn(Optional.of(customerDTO));
+
+        ResponseEntity<CustomerDTO> response = customerController.getCustomerById(id, "W/\"4\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("W/\"5\"", response.getHeaders().getETag());
+        assertEquals(customerDTO, response.getBody());
+    }
+
+    @Test
+    void getCustomersByName_NotModified() {
+        customerDTO.setVersion(1L);
+        when(customerService.getCustomersByName("john", 50)).thenReturn(List.of(customerDTO));
+        String etag = customerController.getCustomersByName("john", 50, null).getHeaders().getETag();
+
+        ResponseEntity<List<CustomerDTO>> unchanged = customerController.getCustomersByName("john", 50, etag);
+        customerDTO.setVersion(2L);
+        ResponseEntity<List<CustomerDTO>> changed = customerController.getCustomersByName("john", 50, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
     @Test
     void getCustomersByName() {
         CustomerDTO customerDTO1 = new CustomerDTO();
@@ -114,9 +411,9 @@ class CustomerControllerTest {
         CustomerDTO customerDTO2 = new CustomerDTO();
         customerDTO1.setName("Johnny");
 
-        when(customerService.getCustomersByName("john")).thenReturn(Arrays.asList(customerDTO1, customerDTO2));
+        when(customerService.getCustomersByName("john", 50)).thenReturn(Arrays.asList(customerDTO1, customerDTO2));
 
-        ResponseEntity<List<CustomerDTO>> response = customerController.getCustomersByName("john");
+        ResponseEntity<List<CustomerDTO>> response = customerController.getCustomersByName("john", 50, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -130,7 +427,7 @@ class CustomerControllerTest {
 
         when(customerService.getCustomerByEmail("test@example.com")).thenReturn(Optional.of(customerDTO));
 
-        ResponseEntity<List<CustomerDTO>> response = customerController.getCustomersByEmail("test@example.com");
+        ResponseEntity<List<CustomerDTO>> response = customerController.getCustomersByEmail("test@example.com", null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -166,4 +463,26 @@ class CustomerControllerTest {
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
     }
+
+    @Test
+    void createCustomers() {
+        List<BatchItemResult> results = List.of(new BatchItemResult(0, UUID.randomUUID(), BatchItemStatus.CREATED, null));
+        when(customerBatchService.createCustomers(List.of(customerDTO))).thenReturn(results);
+
+        ResponseEntity<List<BatchItemResult>> response = customerController.createCustomers(List.of(customerDTO));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    void deleteCustomers() {
+        UUID id = UUID.randomUUID();
+        List<BatchItemResult> results = List.of(new BatchItemResult(0, id, BatchItemStatus.NOT_FOUND, null));
+        when(customerBatchService.deleteCustomers(List.of(id))).thenReturn(results);
+
+        ResponseEntity<List<BatchItemResult>> response = customerController.deleteCustomers(List.of(id));
+
+        assertEquals(BatchItemStatus.NOT_FOUND, response.getBody().getFirst().getStatus());
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.CustomerManagementAPI.controller;
+
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomerJsonWriterTest {
+
+    // Same defaults Spring Boot applies to the application's ObjectMapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void writesSameJsonAsObjectMapper() throws Exception {
+        CustomerRow customer = new CustomerRow(UUID.randomUUID(), "Jane \"JD\" Doe", "jane@example.com",
+                new BigDecimal("12345.60"), LocalDateTime.of(2024, 5, 17, 9, 30, 0, 120_000_000), Tier.PLATINUM, 3L);
+
+        assertEquals(objectMapper.writeValueAsString(toDTO(customer)), write(customer));
+    }
+
+    @Test
+    void writesNullFieldsLikeObjectMapper() throws Exception {
+        CustomerRow customer = new CustomerRow(UUID.randomUUID(), "Jane Doe", null, null, null, null, null);
+
+        assertEquals(objectMapper.writeValueAsString(toDTO(customer)), write(customer));
+    }
+
+    @Test
+    void writesSameCborAndSmileAsBinaryMappers() throws Exception {
+        CustomerRow customer = new CustomerRow(UUID.randomUUID(), "Jane Doe", "jane@example.com",
+                new BigDecimal("12345.60"), LocalDateTime.of(2024, 5, 17, 9, 30, 0, 120_000_000), Tier.GOLD, 3L);
+
+        for (ObjectMapper binaryMapper : List.<ObjectMapper>of(Jackson2ObjectMapperBuilder.cbor().build(),
+                Jackson2ObjectMapperBuilder.smile().build())) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = binaryMapper.getFactory().createGenerator(out)) {
+                CustomerJsonWriter.write(generator, customer);
+            }
+            assertArrayEquals(binaryMapper.writeValueAsBytes(toDTO(customer)), out.toByteArray());
+        }
+    }
+
+    private String write(CustomerRow customer) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            CustomerJsonWriter.write(generator, customer);
+        }
+        return out.toString();
+    }
+
+    private static CustomerDTO toDTO(CustomerRow customer) {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setId(customer.id());
+        dto.setName(customer.name());
+        dto.setEmail(customer.email());
+        dto.setAnnualSpend(customer.annualSpend());
+        dto.setLastPurchaseDate(customer.lastPurchaseDate());
+        dto.setTier(customer.tier());
+        dto.setVersion(customer.version());
+        return dto;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.CustomerManagementAPI.datasource;
+
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.service.CustomerService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two in-memory H2 databases stand in for a primary and its replica; the replica is written to directly
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingPrimary",
+        "customer.replica.datasource.jdbc-url=" + ReplicaRoutingTest.REPLICA_URL,
+        "customer.replica.datasource.username=sa",
+        "customer.replica.max-lag=PT0.2S",
+        "customer.replica.lag-check-interval=PT1H"})
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routingReplica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        replica.update("insert into customer (id, name, search_name, email, tier, version) "
+                + "values (?, 'Replica Only', 'replica only', 'replica@example.com', 'SILVER', 0)", UUID.randomUUID());
+    }
+
+    @Test
+    void readOnlyQueriesGoToTheReplicaUntilItLagsTooFarBehind() throws InterruptedException {
+        CustomerDTO onPrimary = customerService.createCustomer(customer("Primary", "primary@example.com"));
+        // The replica has not caught up with the write yet; the scheduled check at startup found the idle pair in
+        // sync, so wait until that is longer ago than the allowed lag
+        replicaLagMonitor.check();
+        Thread.sleep(300);
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(List.of("Primary"), names(customerService.getAllCustomers()));
+
+        catchUpReplica();
+        replicaLagMonitor.check();
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+        assertEquals(List.of("Replica Only"), names(customerService.getAllCustomers()));
+        assertEquals(List.of("Replica Only"), names(customerService.getCustomersByName("re")));
+        // Single-customer lookups fill the cache and stay on the primary
+        assertTrue(customerService.getCustomerById(onPrimary.getId()).isPresent());
+        assertTrue(customerService.getCustomerByEmail("replica@example.com").isEmpty());
+
+        customerService.createCustomer(customer("Second", "second@example.com"));
+        replicaLagMonitor.check();
+        Thread.sleep(300);
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(List.of("Primary", "Second"), names(customerService.getAllCustomers()).stream().sorted().toList());
+    }
+
+    private void catchUpReplica() {
+        replica.update("update customer_change_seq set last_seq = 1 where id = 1");
+    }
+
+    private static List<String> names(List<CustomerDTO> customers) {
+        return customers.stream().map(CustomerDTO::getName).toList();
+    }
+
+    private static CustomerDTO customer(String name, String email) {
+        CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setName(name);
+        customerDTO.setEmail(email);
+        customerDTO.setAnnualSpend(new BigDecimal("100.00"));
+        customerDTO.setLastPurchaseDate(LocalDateTime.now());
+        return customerDTO;
+    }
+}
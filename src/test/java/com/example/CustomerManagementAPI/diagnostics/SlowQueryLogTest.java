@@ -0,0 +1,42 @@
+package com.example.CustomerManagementAPI.diagnostics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowQueryLogTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ofMillis(100), 1, meterRegistry);
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(elapsedMillis);
+        executionInfo.setSuccess(true);
+        return executionInfo;
+    }
+
+    @Test
+    void recordsOnlyStatementsAboveThreshold() {
+        slowQueryLog.afterQuery(execution(5), List.of(new QueryInfo("select 1")));
+        slowQueryLog.afterQuery(execution(250), List.of(new QueryInfo("select 2")));
+
+        assertEquals(1.0, meterRegistry.get("customer.slow.queries").counter().count());
+        assertEquals(0.0, meterRegistry.get("customer.slow.queries.dropped").counter().count());
+    }
+
+    @Test
+    void dropsEntriesWhenQueueIsFull() {
+        slowQueryLog.afterQuery(execution(250), List.of(new QueryInfo("select 1")));
+        slowQueryLog.afterQuery(execution(300), List.of(new QueryInfo("select 2")));
+
+        assertEquals(1.0, meterRegistry.get("customer.slow.queries.dropped").counter().count());
+    }
+
+}
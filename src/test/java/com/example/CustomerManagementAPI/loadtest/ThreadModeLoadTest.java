@@ -0,0 +1,150 @@
+package com.example.CustomerManagementAPI.loadtest;
+
+import com.example.CustomerManagementAPI.CustomerManagementApiApplication;
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares request throughput of the default platform-thread Tomcat pool with the "virtual"
+ * profile. Excluded from normal builds; run with
+ * mvn test -Dtest=ThreadModeLoadTest -Dloadtest=true [-Dloadtest.clients=400 -Dloadtest.seconds=20]
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ThreadModeLoadTest {
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 400);
+    private static final int SECONDS = Integer.getInteger("loadtest.seconds", 15);
+    private static final int CUSTOMERS = 1000;
+
+    @Test
+    void compareThroughput() throws Exception {
+        Result platform = run("platform");
+        Result virtual = run("virtual");
+
+        System.out.printf("%n%-10s %12s %10s %10s %8s%n", "mode", "requests/s", "p50 ms", "p99 ms", "errors");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %12.0f %10.2f %10.2f %8d%n", result.mode, result.throughput,
+                    result.p50Millis, result.p99Millis, result.errors);
+        }
+        assertEquals(0, platform.errors);
+        assertEquals(0, virtual.errors);
+    }
+
+    private Result run(String mode) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode,
+                "--spring.security.user.name=load",
+                "--spring.security.user.password=test",
+                // Every request goes to the database, as it would for a cold key space
+                "--customer.cache.maximum-size=0",
+                // All clients share one address; throttling would measure the limits instead of the thread mode
+                "--customer.rate-limit.requests-per-second=1000000000",
+                "--customer.shedding.max-in-flight=100000",
+                "--customer.shedding.max-pool-waiters=100000"));
+        if (mode.equals("virtual")) {
+            args.add("--spring.profiles.active=virtual");
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                CustomerManagementApiApplication.class, PlainPasswordConfiguration.class)
+                .run(args.toArray(String[]::new))) {
+            List<UUID> ids = seed(context.getBean(CustomerService.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return load(mode, port, ids);
+        }
+    }
+
+    private List<UUID> seed(CustomerService customerService) {
+        List<UUID> ids = new ArrayList<>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            CustomerDTO customerDTO = new CustomerDTO();
+            customerDTO.setName("Load Customer " + i);
+            customerDTO.setEmail("load" + i + "@example.com");
+            customerDTO.setAnnualSpend(BigDecimal.valueOf(i * 20L));
+            ids.add(customerService.createCustomer(customerDTO).getId());
+        }
+        return ids;
+    }
+
+    private Result load(String mode, int port, List<UUID> ids) throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("load:test".getBytes(StandardCharsets.UTF_8));
+        long deadline = System.nanoTime() + Duration.ofSeconds(SECONDS).toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int offset = c;
+                futures.add(clients.submit(() -> {
+                    long[] samples = new long[1 << 16];
+                    int count = 0;
+                    for (int i = offset; System.nanoTime() < deadline; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(
+                                        URI.create("http://localhost:" + port + "/customers/" + ids.get(i % ids.size())))
+                                .header("Authorization", authorization)
+                                .build();
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            for (Future<long[]> future : futures) {
+                latencies.add(future.get());
+            }
+        }
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(mode, all.length / (double) SECONDS,
+                all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6, errors.get());
+    }
+
+    // The default in-memory user is upgraded to BCrypt on first login, which would dominate the measurement
+    @TestConfiguration(proxyBeanMethods = false)
+    static class PlainPasswordConfiguration {
+        @Bean
+        @SuppressWarnings("deprecation")
+        PasswordEncoder passwordEncoder() {
+            return NoOpPasswordEncoder.getInstance();
+        }
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, long errors) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.CustomerManagementAPI.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCountFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryCounter queryCounter = new QueryCounter();
+    private final QueryCountFilter filter = new QueryCountFilter(queryCounter, new CustomerMetrics(meterRegistry));
+
+    @Test
+    void recordsStatementsIssuedDuringRequest() throws Exception {
+        queryCounter.inspect("select 1");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers/42");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/customers/{id}");
+            queryCounter.inspect("select c from customer c where c.id=?");
+            queryCounter.inspect("select g from customer_name_gram g where g.customer_id=?");
+        });
+
+        DistributionSummary summary = meterRegistry.get("customer.request.queries")
+                .tag("method", "GET").tag("uri", "/customers/{id}").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+    }
+
+    @Test
+    void recordsStatementsOfAStreamedResponseOnceItCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/customers");
+            queryCounter.inspect("select count(*) from customer");
+            req.startAsync();
+        });
+        assertTrue(meterRegistry.find("customer.request.queries").summaries().isEmpty());
+
+        // The body is written on another thread, after the filter has returned
+        ServletWebRequest webRequest = new ServletWebRequest(request);
+        Callable<Void> body = () -> null;
+        Thread writer = new Thread(() -> {
+            try {
+                queryCounter.asyncInterceptor.preProcess(webRequest, body);
+                queryCounter.inspect("select c from customer c");
+                queryCounter.inspect("select c from customer c where c.id>?");
+                queryCounter.asyncInterceptor.postProcess(webRequest, body, null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+        writer.join();
+        request.getAsyncContext().complete();
+
+        DistributionSummary summary = meterRegistry.get("customer.request.queries")
+                .tag("method", "GET").tag("uri", "/customers").summary();
+        assertEquals(1, summary.count());
+        assertEquals(3.0, summary.totalAmount());
+    }
+
+    @Test
+    void ignoresRequestsWithoutMatchedHandler() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(),
+                (req, res) -> queryCounter.inspect("select 1"));
+
+        assertTrue(meterRegistry.find("customer.request.queries").summaries().isEmpty());
+    }
+
+}
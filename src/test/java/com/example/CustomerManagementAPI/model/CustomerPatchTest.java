@@ -0,0 +1,27 @@
+package com.example.CustomerManagementAPI.model;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerPatchTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void blankNameOrEmailIsRejected() {
+        CustomerPatch patch = new CustomerPatch();
+        patch.setName(" ");
+        patch.setEmail("");
+
+        assertEquals(2, validator.validate(patch).size());
+    }
+
+    @Test
+    void absentFieldsAreAccepted() {
+        assertTrue(validator.validate(new CustomerPatch()).isEmpty());
+    }
+}
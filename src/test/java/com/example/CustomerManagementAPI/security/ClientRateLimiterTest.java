@@ -0,0 +1,82 @@
+package com.example.CustomerManagementAPI.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    // 10 per second: one token every 100 ms, up to 3 at once
+    private final ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 1000, clock::get);
+
+    @Test
+    void admitsBurstThenAsksToWaitForTheNextToken() {
+        assertEquals(0, limiter.acquire("a"));
+        assertEquals(0, limiter.acquire("a"));
+        assertEquals(0, limiter.acquire("a"));
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.acquire("a"));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.acquire("a"));
+        assertTrue(limiter.acquire("a") > 0);
+    }
+
+    @Test
+    void clientsHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("a");
+        }
+
+        assertTrue(limiter.acquire("a") > 0);
+        assertEquals(0, limiter.acquire("b"));
+    }
+
+    @Test
+    void idleClientRefillsToTheBurstOnly() {
+        limiter.acquire("a");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertEquals(0, limiter.acquire("a"));
+        assertEquals(0, limiter.acquire("a"));
+        assertEquals(0, limiter.acquire("a"));
+        assertTrue(limiter.acquire("a") > 0);
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheBurst() throws Exception {
+        ClientRateLimiter frozen = new ClientRateLimiter(1, 50, 1000, () -> 0L);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (frozen.acquire("a") == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(50, admitted.get());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.CustomerManagementAPI.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientThrottlingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger poolWaiters = new AtomicInteger();
+    private final LoadShedder loadShedder = new LoadShedder(poolWaiters::get, 1, 5, meterRegistry);
+    private final ClientRateLimiter rateLimiter = new ClientRateLimiter(1, 2, 1000, () -> 0L);
+    private final ClientThrottlingFilter filter = new ClientThrottlingFilter(rateLimiter, loadShedder, meterRegistry);
+
+    @Test
+    void limitsEachUserSeparately() throws Exception {
+        assertEquals(200, get("/customers", "user-a").getStatus());
+        assertEquals(200, get("/customers", "user-a").getStatus());
+
+        MockHttpServletResponse limited = get("/customers", "user-a");
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, get("/customers", "user-b").getStatus());
+        assertEquals(1.0, meterRegistry.get("customer.requests.rejected").tag("reason", "rate_limited").counter().count());
+    }
+
+    @Test
+    void limitsAnonymousRequestsByAddressWhateverHeadersTheySend() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = request("/customers", null);
+            request.addHeader("X-API-Key", "key-" + i);
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            });
+        }
+
+        assertEquals(429, get("/customers", null).getStatus());
+        assertEquals(200, get("/customers", "user-a").getStatus());
+    }
+
+    @Test
+    void shedsWhileTooManyThreadsWaitForAConnection() throws Exception {
+        poolWaiters.set(6);
+
+        MockHttpServletResponse response = get("/customers/42", "user-a");
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("customer.requests.rejected").tag("reason", "pool_saturated").counter().count());
+    }
+
+    @Test
+    void shedsOverTheInFlightLimitAndReleasesTheSlotAfterwards() throws Exception {
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+        MockHttpServletRequest request = request("/customers", "user-a");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try {
+                nested.set(get("/customers", "user-b"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(503, nested.get().getStatus());
+        assertEquals(0.0, meterRegistry.get("customer.requests.in.flight").gauge().value());
+        assertEquals(200, get("/customers", "user-b").getStatus());
+    }
+
+    @Test
+    void keepsAStreamedResponseInFlightUntilItCompletes() throws Exception {
+        MockHttpServletRequest request = request("/customers", "user-a");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1.0, meterRegistry.get("customer.requests.in.flight").gauge().value());
+        request.getAsyncContext().complete();
+        assertEquals(0.0, meterRegistry.get("customer.requests.in.flight").gauge().value());
+    }
+
+    @Test
+    void ignoresOtherPaths() throws Exception {
+        poolWaiters.set(100);
+
+        MockHttpServletResponse response = get("/actuator/health", null);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(meterRegistry.get("customer.requests.rejected").counters().stream().allMatch(c -> c.count() == 0));
+    }
+
+    private MockHttpServletResponse get(String uri, String user) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(uri, user), response, (req, res) -> {
+        });
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri, String user) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (user != null) {
+            request.setUserPrincipal(() -> user);
+        }
+        return request;
+    }
+}
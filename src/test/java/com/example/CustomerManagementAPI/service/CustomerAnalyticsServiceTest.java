@@ -0,0 +1,66 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.MonthSpend;
+import com.example.CustomerManagementAPI.model.SpendAnalytics;
+import com.example.CustomerManagementAPI.model.SpendSegment;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.model.TierSpend;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerSpendSnapshot.Segmentation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerAnalyticsServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private CustomerSpendSnapshot customerSpendSnapshot;
+
+    @InjectMocks
+    private CustomerAnalyticsService customerAnalyticsService;
+
+    @Test
+    void combinesSqlAggregatesWithSnapshotPercentiles() {
+        when(customerRepository.sumSpendByTier()).thenReturn(List.of(
+                new TierSpend(Tier.GOLD, 2, 2, new BigDecimal("30000.00")),
+                new TierSpend(Tier.SILVER, 3, 2, new BigDecimal("100.01"))));
+        when(customerRepository.sumSpendByMonth()).thenReturn(List.of(
+                new MonthSpend(2024, 3, 1, 0, null)));
+        when(customerSpendSnapshot.percentiles(eq(Segmentation.TIER), any(double[].class))).thenReturn(Map.of(
+                Tier.SILVER.ordinal(), new long[]{5000, 5001, 5001},
+                Tier.GOLD.ordinal(), new long[]{1000000, 2000000, 2000000}));
+        when(customerSpendSnapshot.percentiles(eq(Segmentation.MONTH), any(double[].class))).thenReturn(Map.of());
+
+        SpendAnalytics analytics = customerAnalyticsService.getSpendAnalytics();
+
+        SpendSegment silver = analytics.byTier().get(0);
+        assertEquals("SILVER", silver.segment());
+        assertEquals(3, silver.customers());
+        assertEquals(new BigDecimal("50.00"), silver.meanSpend());
+        assertEquals(new BigDecimal("50.00"), silver.p50Spend());
+        assertEquals(new BigDecimal("50.01"), silver.p90Spend());
+        assertEquals("GOLD", analytics.byTier().get(1).segment());
+        assertEquals(new BigDecimal("20000.00"), analytics.byTier().get(1).p99Spend());
+
+        SpendSegment march = analytics.byMonth().getFirst();
+        assertEquals("2024-03", march.segment());
+        assertNull(march.meanSpend());
+        assertNull(march.p50Spend());
+    }
+}
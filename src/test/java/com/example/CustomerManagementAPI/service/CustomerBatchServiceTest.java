@@ -0,0 +1,184 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.cache.CustomerCache;
+import com.example.CustomerManagementAPI.metrics.CustomerMetrics;
+import com.example.CustomerManagementAPI.model.BatchItemResult;
+import com.example.CustomerManagementAPI.model.BatchItemStatus;
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerBatchServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CustomerCache customerCache;
+
+    @Mock
+    private CustomerNameIndex customerNameIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private CustomerBatchService customerBatchService;
+
+    @BeforeEach
+    void setUp() {
+        CustomerService customerService = new CustomerService(customerRepository, customerCache,
+                customerNameIndex, eventPublisher, new CustomerMetrics(new SimpleMeterRegistry()));
+        customerBatchService = new CustomerBatchService(customerRepository, customerService, customerNameIndex,
+                entityManager, transactionManager, validator, eventPublisher, 2);
+    }
+
+    @Test
+    void createCustomers() {
+        when(customerRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Customer> customers = invocation.getArgument(0);
+            customers.forEach(customer -> customer.setId(UUID.randomUUID()));
+            return customers;
+        });
+
+        List<BatchItemResult> results = customerBatchService.createCustomers(List.of(
+                customer("A", "a@example.com"),
+                customer("", "b@example.com"),
+                customer("C", "c@example.com")));
+
+        assertEquals(3, results.size());
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertNotNull(results.get(0).getId());
+        assertEquals(BatchItemStatus.INVALID, results.get(1).getStatus());
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals(BatchItemStatus.CREATED, results.get(2).getStatus());
+        assertEquals(2, results.get(2).getIndex());
+        // Two chunks of size two
+        verify(customerRepository, times(2)).saveAll(anyIterable());
+    }
+
+    @Test
+    void createCustomers_ChunkFailure() {
+        when(customerRepository.saveAll(anyIterable())).thenThrow(new IllegalStateException("boom"));
+
+        List<BatchItemResult> results = customerBatchService.createCustomers(List.of(customer("A", "a@example.com")));
+
+        assertEquals(BatchItemStatus.FAILED, results.getFirst().getStatus());
+        assertEquals("boom", results.getFirst().getMessage());
+    }
+
+    @Test
+    void createCustomers_DuplicateEmail() {
+        when(customerRepository.saveAll(anyIterable()))
+                .thenThrow(new DataIntegrityViolationException("uk_customer_email"))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("uk_customer_email"));
+
+        List<BatchItemResult> results = customerBatchService.createCustomers(List.of(
+                customer("A", "a@example.com"),
+                customer("B", "taken@example.com")));
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.CONFLICT, results.get(1).getStatus());
+    }
+
+    @Test
+    void updateCustomers() {
+        Customer existing = new Customer();
+        existing.setId(UUID.randomUUID());
+        existing.setName("Old");
+        CustomerDTO update = customer("New", "new@example.com");
+        update.setId(existing.getId());
+        update.setAnnualSpend(new BigDecimal("2000"));
+        update.setLastPurchaseDate(LocalDateTime.now());
+        CustomerDTO missing = customer("Missing", "missing@example.com");
+        missing.setId(UUID.randomUUID());
+        when(customerRepository.findAllById(any())).thenReturn(List.of(existing));
+
+        List<BatchItemResult> results = customerBatchService.updateCustomers(List.of(update, missing));
+
+        assertEquals(BatchItemStatus.UPDATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.NOT_FOUND, results.get(1).getStatus());
+        assertEquals("New", existing.getName());
+        verify(customerNameIndex).reindex(existing.getId(), "New");
+        assertEquals(Tier.GOLD, existing.getTier());
+    }
+
+    @Test
+    void updateCustomers_ConflictRejectsOnlyTheConflictingItem() {
+        Customer first = new Customer();
+        first.setId(UUID.randomUUID());
+        Customer second = new Customer();
+        second.setId(UUID.randomUUID());
+        CustomerDTO valid = customer("A", "a@example.com");
+        valid.setId(first.getId());
+        CustomerDTO duplicate = customer("B", "taken@example.com");
+        duplicate.setId(second.getId());
+        when(customerRepository.findAllById(any())).thenReturn(List.of(first, second));
+        doThrow(new DataIntegrityViolationException("uk_customer_email"))
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException("uk_customer_email"))
+                .when(customerRepository).flush();
+
+        List<BatchItemResult> results = customerBatchService.updateCustomers(List.of(valid, duplicate));
+
+        assertEquals(BatchItemStatus.UPDATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.CONFLICT, results.get(1).getStatus());
+        assertEquals("email: already in use", results.get(1).getMessage());
+        verify(customerRepository, times(3)).flush();
+    }
+
+    @Test
+    void deleteCustomers() {
+        UUID present = UUID.randomUUID();
+        UUID absent = UUID.randomUUID();
+        when(customerRepository.findExistingIds(Set.of(present, absent))).thenReturn(List.of(present));
+
+        List<BatchItemResult> results = customerBatchService.deleteCustomers(List.of(present, absent));
+
+        assertEquals(BatchItemStatus.DELETED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.NOT_FOUND, results.get(1).getStatus());
+        verify(customerRepository).deleteAllByIdInBatch(Set.of(present));
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(CustomerChangedEvent.ChangeType.DELETED, present));
+    }
+
+    private static CustomerDTO customer(String name, String email) {
+        CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setName(name);
+        customerDTO.setEmail(email);
+        return customerDTO;
+    }
+}
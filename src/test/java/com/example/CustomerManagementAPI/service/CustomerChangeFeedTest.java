@@ -0,0 +1,141 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.CustomerChange;
+import com.example.CustomerManagementAPI.model.CustomerChangeBatch;
+import com.example.CustomerManagementAPI.repository.CustomerChangeRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CustomerChangeFeedTest {
+
+    @Mock
+    private CustomerChangeRepository customerChangeRepository;
+
+    private CustomerChangeFeed customerChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        when(customerChangeRepository.findLastSeq()).thenReturn(0L);
+        customerChangeFeed = new CustomerChangeFeed(customerChangeRepository, new SimpleMeterRegistry(), 2,
+                Duration.ofSeconds(30), Duration.ofHours(1));
+        customerChangeFeed.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerChangeFeed.stop();
+    }
+
+    @Test
+    void read_DetectsPrunedEntriesFromTheSequenceGap() {
+        when(customerChangeRepository.findAfter(anyLong(), anyInt())).thenReturn(changes(5, 6));
+        customerChangeFeed.committed(6);
+
+        assertEquals(Optional.of(new CustomerChangeBatch(changes(5, 6), 6)), customerChangeFeed.read(4, 10));
+        assertTrue(customerChangeFeed.read(2, 10).isEmpty());
+        // The limit is capped at the maximum batch size
+        verify(customerChangeRepository, times(2)).findAfter(anyLong(), eq(2));
+
+        when(customerChangeRepository.findAfter(anyLong(), anyInt())).thenReturn(List.of());
+        assertTrue(customerChangeFeed.read(3, 10).isEmpty());
+        assertEquals(Optional.of(new CustomerChangeBatch(List.of(), 6)), customerChangeFeed.read(6, 10));
+        assertThrows(IllegalArgumentException.class, () -> customerChangeFeed.read(-1, 10));
+    }
+
+    @Test
+    void poll_WaitsForTheNextCommit() throws Exception {
+        when(customerChangeRepository.findAfter(0, 2)).thenReturn(List.of()).thenReturn(changes(1, 2));
+
+        CompletableFuture<Optional<CustomerChangeBatch>> poll = customerChangeFeed.poll(0, 2, Duration.ofSeconds(10));
+        assertFalse(poll.isDone());
+        customerChangeFeed.committed(2);
+
+        assertEquals(Optional.of(new CustomerChangeBatch(changes(1, 2), 2)), poll.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void poll_AnswersEmptyOnceTheWaitHasPassed() throws Exception {
+        when(customerChangeRepository.findAfter(0, 2)).thenReturn(List.of());
+
+        Optional<CustomerChangeBatch> batch = customerChangeFeed.poll(0, 2, Duration.ofMillis(50)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Optional.of(new CustomerChangeBatch(List.of(), 0)), batch);
+    }
+
+    @Test
+    void subscribe_DeliversBacklogInBatchesThenNewCommits() throws Exception {
+        when(customerChangeRepository.findAfter(0, 2)).thenReturn(changes(1, 2));
+        when(customerChangeRepository.findAfter(2, 2)).thenReturn(changes(3, 3));
+        // Change 4 only becomes readable once committed; a canned empty read after that would look like a prune
+        AtomicBoolean fourCommitted = new AtomicBoolean();
+        when(customerChangeRepository.findAfter(3, 2))
+                .thenAnswer(invocation -> fourCommitted.get() ? changes(4, 4) : List.of());
+        when(customerChangeRepository.findAfter(4, 2)).thenReturn(List.of());
+        customerChangeFeed.committed(3);
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+
+        customerChangeFeed.subscribe(0, 2, new CustomerChangeFeed.Subscriber() {
+            @Override
+            public void changes(CustomerChangeBatch batch) {
+                received.add(batch.next());
+            }
+
+            @Override
+            public void heartbeat() {
+            }
+
+            @Override
+            public void gone() {
+                received.add("gone");
+            }
+
+            @Override
+            public void failed(Exception e) {
+                received.add(e);
+            }
+        });
+        assertEquals(2L, received.poll(5, TimeUnit.SECONDS));
+        assertEquals(3L, received.poll(5, TimeUnit.SECONDS));
+        fourCommitted.set(true);
+        customerChangeFeed.committed(4);
+
+        assertEquals(4L, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    private static List<CustomerChange> changes(long fromSeq, long toSeq) {
+        LocalDateTime changedAt = LocalDateTime.of(2024, 3, 1, 12, 0);
+        return LongStream.rangeClosed(fromSeq, toSeq)
+                .mapToObj(seq -> new CustomerChange(seq, new UUID(0, seq), ChangeType.UPDATED, changedAt))
+                .toList();
+    }
+}
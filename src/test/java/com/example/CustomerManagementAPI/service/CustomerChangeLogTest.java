@@ -0,0 +1,79 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.repository.CustomerChangeRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerChangeLogTest {
+
+    @Mock
+    private CustomerChangeRepository customerChangeRepository;
+
+    @Mock
+    private CustomerChangeFeed customerChangeFeed;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CustomerChangeLog customerChangeLog;
+
+    @BeforeEach
+    void setUp() {
+        customerChangeLog = new CustomerChangeLog(customerChangeRepository, customerChangeFeed, transactionManager,
+                Duration.ofDays(7));
+    }
+
+    @Test
+    void onCustomerChanged_AppendsTheTransactionsChangesAsOneBlockBeforeCommit() {
+        CustomerChangedEvent created = new CustomerChangedEvent(ChangeType.CREATED, UUID.randomUUID());
+        CustomerChangedEvent deleted = new CustomerChangedEvent(ChangeType.DELETED, UUID.randomUUID());
+        when(customerChangeRepository.allocate(2)).thenReturn(11L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            customerChangeLog.onCustomerChanged(created);
+            customerChangeLog.onCustomerChanged(deleted);
+            verifyNoInteractions(customerChangeRepository);
+
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            verify(customerChangeRepository).insert(eq(10L), eq(List.of(created, deleted)), any());
+            verifyNoInteractions(customerChangeFeed);
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            verify(customerChangeFeed).committed(11L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void prune_DeletesTheExpiredPrefixInChunks() {
+        when(customerChangeRepository.findLastSeqChangedBefore(any())).thenReturn(OptionalLong.of(25_000));
+        when(customerChangeRepository.findFirstSeq()).thenReturn(OptionalLong.of(1));
+
+        customerChangeLog.prune();
+
+        verify(customerChangeRepository).deleteBetween(1, 10_000);
+        verify(customerChangeRepository).deleteBetween(10_001, 20_000);
+        verify(customerChangeRepository).deleteBetween(20_001, 25_000);
+        verify(customerChangeRepository, times(3)).deleteBetween(anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.CustomerRow;
+import com.example.CustomerManagementAPI.model.ExportState;
+import com.example.CustomerManagementAPI.model.ExportStatus;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerExportServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @TempDir
+    private Path directory;
+
+    private final CustomerRow first = row("00000000-0000-0000-0000-000000000001", "Ann");
+    private final CustomerRow second = row("00000000-0000-0000-0000-000000000002", "Smith, \"Bob\"");
+    private final CustomerRow third = row("00000000-0000-0000-0000-000000000003", "Cleo");
+
+    @Test
+    void export_WritesAllRowsInChunksAndCompletes() throws IOException {
+        when(customerRepository.findFirstRows(any())).thenReturn(List.of(first, second));
+        when(customerRepository.findRowsAfter(eq(second.id()), any())).thenReturn(List.of(third));
+        CustomerExportService service = new CustomerExportService(customerRepository, directory, 2);
+        service.start();
+
+        CustomerExportService.ExportJob job = new CustomerExportService.ExportJob(UUID.randomUUID(), 3);
+        service.run(job, null);
+
+        ExportStatus status = job.status();
+        assertEquals(ExportState.COMPLETED, status.state());
+        assertEquals(3, status.rowsWritten());
+        Path file = directory.resolve(status.id() + ".csv");
+        assertEquals(expectedCsv(), Files.readString(file));
+        assertEquals(Files.size(file), status.bytesWritten());
+        assertFalse(Files.exists(directory.resolve(status.id() + ".csv.part")));
+        service.stop();
+    }
+
+    @Test
+    void export_ResumesFromCheckpointAfterFailure() throws Exception {
+        when(customerRepository.findFirstRows(any())).thenReturn(List.of(first, second));
+        when(customerRepository.findRowsAfter(eq(second.id()), any()))
+                .thenThrow(new QueryTimeoutException("connection lost"))
+                .thenReturn(List.of(third));
+        CustomerExportService crashed = new CustomerExportService(customerRepository, directory, 2);
+        crashed.start();
+        CustomerExportService.ExportJob job = new CustomerExportService.ExportJob(UUID.randomUUID(), 3);
+        crashed.run(job, null);
+        assertEquals(ExportState.FAILED, job.status().state());
+        assertEquals(2, job.status().rowsWritten());
+        crashed.stop();
+
+        // Bytes written after the checkpoint must not survive the resume
+        Files.writeString(directory.resolve(job.status().id() + ".csv.part"), "partial", StandardOpenOption.APPEND);
+
+        CustomerExportService restarted = new CustomerExportService(customerRepository, directory, 2);
+        restarted.start();
+        ExportStatus status = awaitCompletion(restarted, job.status().id());
+
+        assertEquals(3, status.rowsWritten());
+        assertEquals(expectedCsv(), Files.readString(directory.resolve(status.id() + ".csv")));
+        verify(customerRepository, times(1)).findFirstRows(any());
+        restarted.stop();
+    }
+
+    @Test
+    void getExportFile_OnlyForCompletedExports() {
+        when(customerRepository.findFirstRows(any())).thenThrow(new QueryTimeoutException("connection lost"));
+        CustomerExportService service = new CustomerExportService(customerRepository, directory, 2);
+        service.start();
+        CustomerExportService.ExportJob job = new CustomerExportService.ExportJob(UUID.randomUUID(), 3);
+        service.run(job, null);
+
+        assertTrue(service.getExportFile(job.status().id()).isEmpty());
+        assertTrue(service.getExportFile(UUID.randomUUID()).isEmpty());
+        service.stop();
+    }
+
+    private static ExportStatus awaitCompletion(CustomerExportService service, UUID id) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ExportStatus status = service.getExport(id).orElseThrow();
+            if (status.state() != ExportState.RUNNING) {
+                assertEquals(ExportState.COMPLETED, status.state());
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Export did not complete");
+    }
+
+    private String expectedCsv() {
+        return CustomerCsvWriter.HEADER
+                + "00000000-0000-0000-0000-000000000001,Ann,ann@example.com,1500.50,2024-03-01T10:15:30,SILVER,4\n"
+                + "00000000-0000-0000-0000-000000000002,\"Smith, \"\"Bob\"\"\",smithbob@example.com,1500.50,2024-03-01T10:15:30,SILVER,4\n"
+                + "00000000-0000-0000-0000-000000000003,Cleo,cleo@example.com,1500.50,2024-03-01T10:15:30,SILVER,4\n";
+    }
+
+    private static CustomerRow row(String id, String name) {
+        return new CustomerRow(UUID.fromString(id), name, name.replaceAll("\\W", "").toLowerCase() + "@example.com",
+                new BigDecimal("1500.50"), LocalDateTime.of(2024, 3, 1, 10, 15, 30), Tier.SILVER, 4L);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.cache.CustomerCache;
+import com.example.CustomerManagementAPI.metrics.CustomerMetrics;
+import com.example.CustomerManagementAPI.model.Customer;
+import com.example.CustomerManagementAPI.model.ImportState;
+import com.example.CustomerManagementAPI.model.ImportStatus;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerImportServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CustomerCache customerCache;
+
+    @Mock
+    private CustomerNameIndex customerNameIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    private Path directory;
+
+    private final List<Customer> saved = new ArrayList<>();
+
+    private CustomerImportService customerImportService;
+
+    @BeforeEach
+    void setUp() {
+        CustomerMetrics customerMetrics = new CustomerMetrics(new SimpleMeterRegistry());
+        CustomerService customerService = new CustomerService(customerRepository, customerCache,
+                customerNameIndex, eventPublisher, customerMetrics);
+        CustomerBatchService customerBatchService = new CustomerBatchService(customerRepository, customerService,
+                customerNameIndex, entityManager, transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher, 500);
+        customerImportService = new CustomerImportService(customerBatchService, customerMetrics,
+                new ObjectMapper().registerModule(new JavaTimeModule()), directory, 2);
+        customerImportService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerImportService.stop();
+    }
+
+    @Test
+    void importCsv_WritesValidRowsInCommitSizedChunksAndRejectsTheRest() throws IOException {
+        when(customerRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Customer> customers = invocation.getArgument(0);
+            customers.forEach(customer -> {
+                customer.setId(UUID.randomUUID());
+                saved.add(customer);
+            });
+            return customers;
+        });
+        String csv = """
+                id,name,email,annual_spend,last_purchase_date,tier,version
+                ,Ann,ann@example.com,1500.50,2024-03-01T10:15:30,,
+                ,"Smith, ""Bob""
+                Jr.",bob@example.com,,,,
+
+                ,Cleo,not-an-email,,,,
+                ,Dan,dan@example.com,lots,,,
+                ,Eve,eve@example.com,20000,,,
+                """;
+
+        ImportStatus result = importCustomers(input(csv), CustomerImportService.Format.CSV);
+
+        assertEquals(ImportState.COMPLETED, result.state());
+        assertEquals(5, result.rowsRead());
+        assertEquals(3, result.rowsImported());
+        assertEquals(2, result.rowsRejected());
+        assertEquals(List.of("Ann", "Smith, \"Bob\"\nJr.", "Eve"), saved.stream().map(Customer::getName).toList());
+        assertEquals(new BigDecimal("1500.50"), saved.getFirst().getAnnualSpend());
+        // Chunks of two: the second chunk has no valid rows and is not written
+        verify(customerRepository, times(2)).saveAll(anyIterable());
+
+        List<String> rejects = Files.readAllLines(customerImportService.getRejectFile(result.id()).orElseThrow());
+        assertEquals(List.of(
+                "line,reason,record",
+                "6,email: Email should be valid,\",Cleo,not-an-email,,,,\"",
+                "7,annual_spend: must be a number,\",Dan,dan@example.com,lots,,,\""), rejects);
+    }
+
+    @Test
+    void importNdjson_RejectsMalformedLines() throws IOException {
+        when(customerRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+        String ndjson = """
+                {"name":"Ann","email":"ann@example.com","annualSpend":1500}
+                {"name":"Bob",
+                {"name":"","email":"cleo@example.com"}
+                """;
+
+        ImportStatus result = importCustomers(input(ndjson), CustomerImportService.Format.NDJSON);
+
+        assertEquals(3, result.rowsRead());
+        assertEquals(1, result.rowsImported());
+        assertEquals(2, result.rowsRejected());
+        ArgumentCaptor<Iterable<Customer>> customers = ArgumentCaptor.captor();
+        verify(customerRepository).saveAll(customers.capture());
+        assertEquals("Ann", customers.getValue().iterator().next().getName());
+        List<String> rejects = Files.readAllLines(customerImportService.getRejectFile(result.id()).orElseThrow());
+        assertTrue(rejects.get(1).startsWith("2,malformed JSON: "));
+        assertTrue(rejects.get(2).startsWith("3,name: Name is required,"));
+    }
+
+    @Test
+    void importCsv_WithoutRejectsLeavesNoRejectFile() throws IOException {
+        when(customerRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImportStatus result = importCustomers(input("email,name\nann@example.com,Ann\n"),
+                CustomerImportService.Format.CSV);
+
+        assertEquals(1, result.rowsImported());
+        assertTrue(customerImportService.getRejectFile(result.id()).isEmpty());
+    }
+
+    @Test
+    void importCsv_HeaderWithoutEmailColumn() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> customerImportService.startImport(
+                input("name,annual_spend\nAnn,10\n"), CustomerImportService.Format.CSV));
+        verifyNoInteractions(customerRepository);
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void stop_EndsARunningImportAfterTheCurrentChunk() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return invocation.getArgument(0);
+        });
+        ImportStatus status = customerImportService.startImport(input("""
+                {"name":"Ann","email":"ann@example.com"}
+                {"name":"Bob","email":"bob@example.com"}
+                {"name":"Cleo","email":"cleo@example.com"}
+                """), CustomerImportService.Format.NDJSON);
+        writing.await();
+
+        Thread stopping = new Thread(customerImportService::stop);
+        stopping.start();
+        while (customerImportService.isRunning()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        stopping.join();
+
+        status = customerImportService.getImport(status.id()).orElseThrow();
+        assertEquals(ImportState.FAILED, status.state());
+        assertEquals(2, status.rowsImported());
+        assertTrue(status.error().startsWith("Stopped by shutdown"));
+        assertFalse(Files.exists(directory.resolve(status.id() + ".upload")));
+    }
+
+    // Starts the import and waits for the background job to finish
+    private ImportStatus importCustomers(ByteArrayInputStream input, CustomerImportService.Format format)
+            throws IOException {
+        ImportStatus status = customerImportService.startImport(input, format);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (status.state() == ImportState.RUNNING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+            status = customerImportService.getImport(status.id()).orElseThrow();
+        }
+        return status;
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.repository.CustomerNameGramRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerNameIndexTest {
+
+    @Mock
+    private CustomerNameGramRepository customerNameGramRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private CustomerNameIndex customerNameIndex;
+
+    @Test
+    void candidates_ReadsEachGramUpToTheCapAndKeepsTheRarest() {
+        List<UUID> common = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> rare = List.of(UUID.randomUUID());
+        when(customerNameGramRepository.findCustomerIdsByGram("son", Limit.of(3))).thenReturn(common);
+        when(customerNameGramRepository.findCustomerIdsByGram("dso", Limit.of(3))).thenReturn(rare);
+
+        assertEquals(rare, customerNameIndex.candidates(List.of("son", "dso"), 3));
+    }
+
+    @Test
+    void candidates_StopsAtAGramNobodyHas() {
+        when(customerNameGramRepository.findCustomerIdsByGram("xqz", Limit.of(3))).thenReturn(List.of());
+
+        assertEquals(List.of(), customerNameIndex.candidates(List.of("xqz", "qzz"), 3));
+        verify(customerNameGramRepository, never()).findCustomerIdsByGram("qzz", Limit.of(3));
+    }
+}
@@ -1,27 +1,45 @@
 package com.example.CustomerManagementAPI.service;
 
+import com.example.CustomerManagementAPI.cache.CustomerCache;
+import com.example.CustomerManagementAPI.metrics.CustomerMetrics;
 import com.example.CustomerManagementAPI.model.Customer;
 import com.example.CustomerManagementAPI.model.CustomerDTO;
+import com.example.CustomerManagementAPI.model.CustomerPage;
+import com.example.CustomerManagementAPI.model.CustomerPatch;
 import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.model.TierCount;
 import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +48,20 @@ class CustomerServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private CustomerCache customerCache;
+
+    @Mock
+    private CustomerNameIndex customerNameIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CustomerMetrics customerMetrics = new CustomerMetrics(meterRegistry);
+
     @InjectMocks
     private CustomerService customerService;
 
@@ -82,6 +114,103 @@ class CustomerServiceTest {
         verify(customerRepository, times(1)).findAll();
     }
 
+    @Test
+    void getCustomersPage() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Customer customer = new Customer();
+            customer.setId(UUID.randomUUID());
+            customers.add(customer);
+        }
+        when(customerRepository.findAllByOrderByIdAsc(Limit.of(3))).thenReturn(customers);
+
+        CustomerPage page = customerService.getCustomersPage(null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(customers.get(1).getId(), CustomerService.decodeCursor(page.getNextCursor()));
+    }
+
+    @Test
+    void getCustomersPage_LastPage() {
+        UUID after = UUID.randomUUID();
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(3))).thenReturn(List.of(testCustomer));
+
+        CustomerPage page = customerService.getCustomersPage(CustomerService.encodeCursor(after), 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getCustomersPage_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> customerService.getCustomersPage("bm90LWEtdXVpZA", 10));
+    }
+
+    @Test
+    void getCustomersByTier() {
+        testCustomer.setTier(Tier.PLATINUM);
+        when(customerRepository.findByTierOrderByIdAsc(Tier.PLATINUM, Limit.of(11))).thenReturn(List.of(testCustomer));
+
+        CustomerPage page = customerService.getCustomersByTier(Tier.PLATINUM, null, 10);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(Tier.PLATINUM, page.getItems().getFirst().getTier());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getTierCounts() {
+        when(customerRepository.countByTier()).thenReturn(List.of(new TierCount(Tier.GOLD, 7L)));
+
+        Map<Tier, Long> counts = customerService.getTierCounts();
+
+        assertEquals(0L, counts.get(Tier.SILVER));
+        assertEquals(7L, counts.get(Tier.GOLD));
+        assertEquals(0L, counts.get(Tier.PLATINUM));
+    }
+
+    @Test
+    void getCustomersByName_RanksTheRarestTrigramsHolders() {
+        Customer johnson = customer("Johnson");
+        Customer john = customer("John");
+        Customer bigJohn = customer("Big John");
+        List<UUID> ids = List.of(johnson.getId(), john.getId(), bigJohn.getId());
+        when(customerNameIndex.candidates(Set.of("joh", "ohn"), CustomerService.NAME_CANDIDATE_LIMIT)).thenReturn(ids);
+        when(customerRepository.searchByNameAmong(ids, "%john%")).thenReturn(List.of(bigJohn, johnson, john));
+
+        List<CustomerDTO> found = customerService.getCustomersByName(" John ", 2);
+
+        assertEquals(List.of("John", "Johnson"), found.stream().map(CustomerDTO::getName).toList());
+    }
+
+    @Test
+    void getCustomersByName_WithoutCandidatesSkipsTheRecheck() {
+        when(customerNameIndex.candidates(Set.of("zzz"), CustomerService.NAME_CANDIDATE_LIMIT)).thenReturn(List.of());
+
+        assertTrue(customerService.getCustomersByName("zzz", 10).isEmpty());
+        verify(customerRepository, never()).searchByNameAmong(any(), any());
+    }
+
+    @Test
+    void getCustomersByName_ShortQueryUsesPrefix() {
+        Customer longer = customer("J_ Longer");
+        Customer shorter = customer("J_ S");
+        when(customerRepository.searchByNamePrefix("j\\_%", Limit.of(10))).thenReturn(List.of(longer, shorter));
+
+        List<CustomerDTO> found = customerService.getCustomersByName("J_", 10);
+
+        assertEquals(List.of("J_ S", "J_ Longer"), found.stream().map(CustomerDTO::getName).toList());
+    }
+
+    private static Customer customer(String name) {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setName(name);
+        customer.setSearchName(CustomerNameIndex.normalize(name));
+        customer.setEmail(name.replace(' ', '.') + "@example.com");
+        return customer;
+    }
+
     @Test
     void getCustomerById() {
         when(customerRepository.findById(testCustomer.getId())).thenReturn(Optional.of(testCustomer));
@@ -92,16 +221,137 @@ class CustomerServiceTest {
         assertEquals(testCustomer.getId(), found.get().getId());
     }
 
+    @Test
+    void createCustomer_NormalizesEmail() {
+        testCustomerDTO.setEmail("  John.Doe@Example.COM ");
+        when(customerRepository.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CustomerDTO createdDTO = customerService.createCustomer(testCustomerDTO);
+
+        assertEquals("john.doe@example.com", createdDTO.getEmail());
+    }
+
+    @Test
+    void getCustomerByEmail_NormalizesLookup() {
+        when(customerRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testCustomer));
+
+        Optional<CustomerDTO> found = customerService.getCustomerByEmail(" TEST@example.com");
+
+        assertTrue(found.isPresent());
+    }
+
+    @Test
+    void getCustomerById_CacheHit() {
+        when(customerCache.get(testCustomerDTO.getId())).thenReturn(testCustomerDTO);
+
+        Optional<CustomerDTO> found = customerService.getCustomerById(testCustomerDTO.getId());
+
+        assertEquals(testCustomerDTO, found.get());
+        verify(customerRepository, never()).findById(any());
+    }
+
+    @Test
+    void getCustomerById_CacheMissPopulatesCache() {
+        when(customerCache.stamp()).thenReturn(42L);
+        when(customerRepository.findById(testCustomer.getId())).thenReturn(Optional.of(testCustomer));
+
+        Optional<CustomerDTO> found = customerService.getCustomerById(testCustomer.getId());
+
+        verify(customerCache).put(found.get(), 42L);
+    }
+
+    @Test
+    void getCustomerVersion_ReadsOnlyTheVersionOnCacheMiss() {
+        when(customerRepository.findVersionById(testCustomer.getId())).thenReturn(Optional.of(7L));
+
+        assertEquals(Optional.of(7L), customerService.getCustomerVersion(testCustomer.getId()));
+        verify(customerRepository, never()).findById(any());
+    }
+
+    @Test
+    void deleteCustomer_PublishesChange() {
+        customerService.deleteCustomer(testCustomer.getId());
+
+        verify(eventPublisher).publishEvent(
+                new CustomerChangedEvent(CustomerChangedEvent.ChangeType.DELETED, testCustomer.getId()));
+    }
+
+    @Test
+    void patchCustomer_UpdatesWithoutLoading() {
+        CustomerPatch patch = new CustomerPatch();
+        patch.setName("Renamed");
+        patch.setEmail(" Renamed@Example.com ");
+        ArgumentCaptor<CustomerPatch> written = ArgumentCaptor.forClass(CustomerPatch.class);
+        when(customerRepository.patch(eq(testCustomer.getId()), written.capture(), eq(4L), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        assertTrue(customerService.patchCustomer(testCustomer.getId(), patch, 4L));
+
+        assertEquals("renamed@example.com", written.getValue().getEmail());
+        assertEquals("Renamed", written.getValue().getName());
+        // The caller's patch is left as it was sent
+        assertEquals(" Renamed@Example.com ", patch.getEmail());
+        verify(customerRepository, never()).findById(any());
+        verify(customerNameIndex).reindex(testCustomer.getId(), "Renamed");
+        verify(eventPublisher).publishEvent(
+                new CustomerChangedEvent(CustomerChangedEvent.ChangeType.UPDATED, testCustomer.getId(), 5L));
+    }
+
+    @Test
+    void patchCustomer_NotFound() {
+        CustomerPatch patch = new CustomerPatch();
+        patch.setLastPurchaseDate(LocalDateTime.now());
+        when(customerRepository.patch(eq(testCustomer.getId()), any(), eq(0L), any(LocalDateTime.class))).thenReturn(0);
+        when(customerRepository.existsById(testCustomer.getId())).thenReturn(false);
+
+        assertFalse(customerService.patchCustomer(testCustomer.getId(), patch, 0L));
+        verifyNoInteractions(customerNameIndex, eventPublisher);
+    }
+
+    @Test
+    void patchCustomer_StaleVersion() {
+        CustomerPatch patch = new CustomerPatch();
+        patch.setAnnualSpend(new BigDecimal("2500"));
+        when(customerRepository.patch(eq(testCustomer.getId()), any(), eq(3L), any(LocalDateTime.class))).thenReturn(0);
+        when(customerRepository.existsById(testCustomer.getId())).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> customerService.patchCustomer(testCustomer.getId(), patch, 3L));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void getCustomerById_CopiesStoredTier() {
+        testCustomer.setAnnualSpend(new BigDecimal("15000"));
+        testCustomer.setTier(Tier.GOLD);
+        when(customerRepository.findById(testCustomer.getId())).thenReturn(Optional.of(testCustomer));
+
+        Optional<CustomerDTO> found = customerService.getCustomerById(testCustomer.getId());
+
+        assertEquals(Tier.GOLD, found.get().getTier());
+    }
+
+    @Test
+    void createCustomer_StoresTier() {
+        testCustomerDTO.setAnnualSpend(new BigDecimal("15000"));
+        testCustomerDTO.setLastPurchaseDate(LocalDateTime.now().minusDays(1));
+        when(customerRepository.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CustomerDTO createdDTO = customerService.createCustomer(testCustomerDTO);
+
+        assertEquals(Tier.PLATINUM, createdDTO.getTier());
+    }
+
     @Test
     void updateCustomer() {
-        Customer updatedDetails = new Customer();
+        CustomerDTO updatedDetails = new CustomerDTO();
         updatedDetails.setName("Updated Name");
         updatedDetails.setEmail("updated@example.com");
 
         when(customerRepository.findById(testCustomer.getId())).thenReturn(Optional.of(testCustomer));
         when(customerRepository.save(any(Customer.class))).thenReturn(testCustomer);
 
-        CustomerDTO updatedCustomerDTO = customerService.updateCustomer(testCustomer.getId(), updatedDetails);
+        CustomerDTO updatedCustomerDTO = customerService.updateCustomer(testCustomer.getId(), updatedDetails).orElseThrow();
 
         assertEquals(updatedDetails.getName(), updatedCustomerDTO.getName());
         assertEquals(updatedDetails.getEmail(), updatedCustomerDTO.getEmail());
@@ -119,39 +369,47 @@ class CustomerServiceTest {
     @Test
     void calculateTier_Silver() {
         testCustomer.setAnnualSpend(new BigDecimal("500"));
-        customerService.calculateTier(testCustomer);
-        assertEquals(Tier.SILVER, testCustomer.getTier());
+        assertEquals(Tier.SILVER, customerService.calculateTier(testCustomer));
     }
 
     @Test
     void calculateTier_Gold() {
         testCustomer.setAnnualSpend(new BigDecimal("5000"));
         testCustomer.setLastPurchaseDate(LocalDateTime.now().minusMonths(6));
-        customerService.calculateTier(testCustomer);
-        assertEquals(Tier.GOLD, testCustomer.getTier());
+        assertEquals(Tier.GOLD, customerService.calculateTier(testCustomer));
     }
 
     @Test
     void calculateTier_Platinum() {
         testCustomer.setAnnualSpend(new BigDecimal("15000"));
         testCustomer.setLastPurchaseDate(LocalDateTime.now().minusMonths(3));
-        customerService.calculateTier(testCustomer);
-        assertEquals(Tier.PLATINUM, testCustomer.getTier());
+        assertEquals(Tier.PLATINUM, customerService.calculateTier(testCustomer));
     }
 
     @Test
     void calculateTier_GoldExpired() {
         testCustomer.setAnnualSpend(new BigDecimal("5000"));
         testCustomer.setLastPurchaseDate(LocalDateTime.now().minusMonths(13));
-        customerService.calculateTier(testCustomer);
-        assertEquals(Tier.SILVER, testCustomer.getTier());
+        assertEquals(Tier.SILVER, customerService.calculateTier(testCustomer));
     }
 
     @Test
     void calculateTier_PlatinumExpired() {
         testCustomer.setAnnualSpend(new BigDecimal("15000"));
         testCustomer.setLastPurchaseDate(LocalDateTime.now().minusMonths(7));
+        assertEquals(Tier.SILVER, customerService.calculateTier(testCustomer));
+    }
+
+    @Test
+    void recordsOperationLatencyAndComputedTiers() {
+        when(customerCache.get(testCustomer.getId())).thenReturn(testCustomerDTO);
+        testCustomer.setAnnualSpend(new BigDecimal("5000"));
+        testCustomer.setLastPurchaseDate(LocalDateTime.now().minusMonths(1));
+
+        customerService.getCustomerById(testCustomer.getId());
         customerService.calculateTier(testCustomer);
-        assertEquals(Tier.SILVER, testCustomer.getTier());
+
+        assertEquals(1, meterRegistry.get("customer.operation").tag("operation", "get").timer().count());
+        assertEquals(1.0, meterRegistry.get("customer.tier.computed").tag("tier", "GOLD").counter().count());
     }
 }
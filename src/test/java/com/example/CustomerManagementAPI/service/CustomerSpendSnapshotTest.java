@@ -0,0 +1,111 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.SpendRow;
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import com.example.CustomerManagementAPI.service.CustomerSpendSnapshot.Segmentation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerSpendSnapshotTest {
+
+    private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 15, 12, 0);
+    private static final LocalDateTime APRIL = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Test
+    void percentilesByTierAndMonth() {
+        List<SpendRow> rows = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            rows.add(row(i + ".00", MARCH, Tier.SILVER));
+        }
+        rows.add(row("5000.00", APRIL, Tier.GOLD));
+        rows.add(new SpendRow(UUID.randomUUID(), null, APRIL, Tier.GOLD));
+        when(customerRepository.findFirstSpendRows(any())).thenReturn(rows);
+        CustomerSpendSnapshot snapshot = new CustomerSpendSnapshot(customerRepository);
+
+        Map<Integer, long[]> byTier = snapshot.percentiles(Segmentation.TIER, 0.5, 0.9, 0.99);
+        Map<Integer, long[]> byMonth = snapshot.percentiles(Segmentation.MONTH, 0.5);
+
+        assertArrayEquals(new long[]{5000, 9000, 9900}, byTier.get(Tier.SILVER.ordinal()));
+        assertArrayEquals(new long[]{500000, 500000, 500000}, byTier.get(Tier.GOLD.ordinal()));
+        assertFalse(byTier.containsKey(Tier.PLATINUM.ordinal()));
+        assertEquals(Map.of(2024 * 12 + 2, 5000L, 2024 * 12 + 3, 500000L),
+                Map.of(2024 * 12 + 2, byMonth.get(2024 * 12 + 2)[0], 2024 * 12 + 3, byMonth.get(2024 * 12 + 3)[0]));
+        // Loaded once in a single chunk
+        verify(customerRepository).findFirstSpendRows(any());
+        verify(customerRepository, never()).findSpendRowsAfter(any(), any());
+    }
+
+    @Test
+    void appliesChangedAndDeletedCustomersBeforeTheNextScan() {
+        SpendRow kept = row("10.00", MARCH, Tier.SILVER);
+        SpendRow updated = row("20.00", MARCH, Tier.SILVER);
+        SpendRow deleted = row("30.00", MARCH, Tier.SILVER);
+        when(customerRepository.findFirstSpendRows(any())).thenReturn(List.of(kept, updated, deleted));
+        CustomerSpendSnapshot snapshot = new CustomerSpendSnapshot(customerRepository);
+        assertArrayEquals(new long[]{3000}, snapshot.percentiles(Segmentation.TIER, 1.0).get(Tier.SILVER.ordinal()));
+
+        SpendRow promoted = new SpendRow(updated.id(), new BigDecimal("2500.00"), APRIL, Tier.GOLD);
+        SpendRow created = row("5.00", APRIL, Tier.SILVER);
+        when(customerRepository.findSpendRowsByIdIn(any())).thenReturn(List.of(promoted, created));
+        snapshot.onCustomerChanged(new CustomerChangedEvent(ChangeType.UPDATED, updated.id()));
+        snapshot.onCustomerChanged(new CustomerChangedEvent(ChangeType.DELETED, deleted.id()));
+        snapshot.onCustomerChanged(new CustomerChangedEvent(ChangeType.CREATED, created.id()));
+
+        Map<Integer, long[]> byTier = snapshot.percentiles(Segmentation.TIER, 0.0, 1.0);
+
+        assertArrayEquals(new long[]{500, 1000}, byTier.get(Tier.SILVER.ordinal()));
+        assertArrayEquals(new long[]{250000, 250000}, byTier.get(Tier.GOLD.ordinal()));
+        verify(customerRepository, times(1)).findFirstSpendRows(any());
+    }
+
+    @Test
+    void ignoresChangesUntilFirstUsed() {
+        CustomerSpendSnapshot snapshot = new CustomerSpendSnapshot(customerRepository);
+
+        snapshot.onCustomerChanged(new CustomerChangedEvent(ChangeType.CREATED, UUID.randomUUID()));
+        snapshot.percentiles(Segmentation.TIER, 0.5);
+
+        verify(customerRepository, never()).findSpendRowsByIdIn(any());
+    }
+
+    @Test
+    void epochMonthMatchesLocalDate() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.isBefore(LocalDate.of(2101, 3, 1)); date = date.plusDays(1)) {
+            assertEquals(date.getYear() * 12 + date.getMonthValue() - 1, CustomerSpendSnapshot.epochMonth((int) date.toEpochDay()));
+        }
+    }
+
+    @Test
+    void toCentsRoundsAndSaturates() {
+        assertEquals(123457, CustomerSpendSnapshot.toCents(new BigDecimal("1234.567")));
+        assertEquals(-50, CustomerSpendSnapshot.toCents(new BigDecimal("-0.50")));
+        assertEquals(Long.MAX_VALUE, CustomerSpendSnapshot.toCents(new BigDecimal("1e30")));
+        assertEquals(CustomerSpendSnapshot.NO_SPEND, CustomerSpendSnapshot.toCents(null));
+    }
+
+    private static SpendRow row(String spend, LocalDateTime lastPurchaseDate, Tier tier) {
+        return new SpendRow(UUID.randomUUID(), new BigDecimal(spend), lastPurchaseDate, tier);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.PurchaseEvent;
+import com.example.CustomerManagementAPI.model.PurchaseIngestResult;
+import com.example.CustomerManagementAPI.model.PurchaseTotal;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PurchaseAggregatorTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PurchaseAggregator purchaseAggregator;
+
+    @BeforeEach
+    void setUp() {
+        purchaseAggregator = new PurchaseAggregator(customerRepository, transactionManager, eventPublisher,
+                meterRegistry, 2, Duration.ofMillis(50), 100);
+    }
+
+    @Test
+    void coalescePerCustomer() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<PurchaseTotal> totals = PurchaseAggregator.coalesce(List.of(
+                new PurchaseEvent(first, new BigDecimal("10.50"), now.minusDays(2)),
+                new PurchaseEvent(second, new BigDecimal("99"), now.minusDays(1)),
+                new PurchaseEvent(first, new BigDecimal("4.50"), now),
+                new PurchaseEvent(first, new BigDecimal("-5"), now.minusDays(3))));
+
+        assertEquals(List.of(
+                new PurchaseTotal(first, new BigDecimal("10.00"), now),
+                new PurchaseTotal(second, new BigDecimal("99"), now.minusDays(1))), totals);
+    }
+
+    @Test
+    void submitRejectsWhenQueueFull() {
+        List<PurchaseEvent> events = List.of(
+                new PurchaseEvent(UUID.randomUUID(), BigDecimal.ONE, null),
+                new PurchaseEvent(UUID.randomUUID(), BigDecimal.ONE, null),
+                new PurchaseEvent(UUID.randomUUID(), BigDecimal.ONE, null));
+
+        PurchaseIngestResult result = purchaseAggregator.submit(events);
+
+        assertEquals(new PurchaseIngestResult(2, 1), result);
+        assertNotNull(events.get(0).getPurchasedAt());
+    }
+
+    @Test
+    void flushPublishesOnlyForExistingCustomers() {
+        UUID known = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        when(customerRepository.applyPurchases(anyList(), any(LocalDateTime.class))).thenReturn(new int[]{1, 0});
+
+        purchaseAggregator.flush(List.of(
+                new PurchaseEvent(known, BigDecimal.TEN, LocalDateTime.now()),
+                new PurchaseEvent(unknown, BigDecimal.TEN, LocalDateTime.now())));
+
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(CustomerChangedEvent.ChangeType.UPDATED, known));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void flushAppliesTheOtherTotalsWhenOneFails() {
+        UUID first = UUID.randomUUID();
+        UUID bad = UUID.randomUUID();
+        UUID last = UUID.randomUUID();
+        when(customerRepository.applyPurchases(anyList(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            List<PurchaseTotal> totals = invocation.getArgument(0);
+            if (totals.stream().anyMatch(total -> total.customerId().equals(bad))) {
+                throw new DataIntegrityViolationException("numeric value out of range");
+            }
+            int[] updated = new int[totals.size()];
+            Arrays.fill(updated, 1);
+            return updated;
+        });
+
+        purchaseAggregator.flush(List.of(
+                new PurchaseEvent(first, BigDecimal.TEN, LocalDateTime.now()),
+                new PurchaseEvent(bad, BigDecimal.TEN, LocalDateTime.now()),
+                new PurchaseEvent(last, BigDecimal.TEN, LocalDateTime.now())));
+
+        // The batch twice, then each total on its own
+        verify(customerRepository, times(5)).applyPurchases(anyList(), any(LocalDateTime.class));
+        verify(transactionManager, times(3)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(CustomerChangedEvent.ChangeType.UPDATED, first));
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(CustomerChangedEvent.ChangeType.UPDATED, last));
+        verifyNoMoreInteractions(eventPublisher);
+        assertEquals(1.0, meterRegistry.get("customer.purchases.failed").counter().count());
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.example.CustomerManagementAPI.service;
+
+import com.example.CustomerManagementAPI.model.Tier;
+import com.example.CustomerManagementAPI.repository.CustomerRepository;
+import com.example.CustomerManagementAPI.service.CustomerChangedEvent.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TierRecomputationJobTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private CustomerService customerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private TierRecomputationJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new TierRecomputationJob(customerRepository, customerService, transactionManager, eventPublisher);
+    }
+
+    @Test
+    void recomputeTiers_CommitsEachChunkWithItsEvents() {
+        List<UUID> first = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> second = List.of(UUID.randomUUID());
+        when(customerRepository.findExpiredTierIds(eq(Tier.PLATINUM), any(), any()))
+                .thenReturn(first)
+                .thenReturn(second)
+                .thenReturn(List.of());
+        when(customerRepository.downgradeTier(any(), eq(Tier.PLATINUM), any())).thenReturn(2, 1);
+        when(customerRepository.findExpiredTierIds(eq(Tier.GOLD), any(), any())).thenReturn(List.of());
+        when(customerRepository.findByTierIsNull(any())).thenReturn(List.of());
+
+        job.recomputeTiers();
+
+        InOrder inOrder = inOrder(customerRepository, eventPublisher, transactionManager);
+        inOrder.verify(customerRepository).downgradeTier(eq(first), eq(Tier.PLATINUM), any());
+        inOrder.verify(eventPublisher, times(2)).publishEvent(any(CustomerChangedEvent.class));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(customerRepository).downgradeTier(eq(second), eq(Tier.PLATINUM), any());
+        inOrder.verify(eventPublisher).publishEvent(new CustomerChangedEvent(ChangeType.UPDATED, second.getFirst()));
+        inOrder.verify(transactionManager).commit(any());
+        // Two chunks plus the empty PLATINUM, GOLD and backfill queries, each in its own transaction
+        verify(transactionManager, times(5)).commit(any());
+    }
+
+    @Test
+    void recomputeTiers_PublishesOnlyForRowsTheUpdateChanged() {
+        UUID lapsed = UUID.randomUUID();
+        UUID purchasedMeanwhile = UUID.randomUUID();
+        List<UUID> ids = List.of(lapsed, purchasedMeanwhile);
+        when(customerRepository.findExpiredTierIds(eq(Tier.PLATINUM), any(), any()))
+                .thenReturn(ids)
+                .thenReturn(List.of());
+        // The second customer's purchase date moved past the cutoff between the select and the update
+        when(customerRepository.downgradeTier(eq(ids), eq(Tier.PLATINUM), any())).thenReturn(1);
+        when(customerRepository.findDowngradedIds(eq(ids), any())).thenReturn(List.of(lapsed));
+        when(customerRepository.findExpiredTierIds(eq(Tier.GOLD), any(), any())).thenReturn(List.of());
+        when(customerRepository.findByTierIsNull(any())).thenReturn(List.of());
+
+        job.recomputeTiers();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(customerRepository, times(2)).findExpiredTierIds(eq(Tier.PLATINUM), cutoff.capture(), any());
+        verify(customerRepository).downgradeTier(ids, Tier.PLATINUM, cutoff.getValue());
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(ChangeType.UPDATED, lapsed));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.CustomerManagementAPI.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyInitializationConfigTest {
+
+    @Test
+    void lazyPackagesPostProcessor_DefersBeansDeclaredInListedPackages() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("org.springdoc.core.configuration.SpringDocConfiguration",
+                BeanDefinitionBuilder.genericBeanDefinition(
+                        "org.springdoc.core.configuration.SpringDocConfiguration").getBeanDefinition());
+        GenericBeanDefinition openApiResource = new GenericBeanDefinition();
+        openApiResource.setFactoryBeanName("org.springdoc.core.configuration.SpringDocConfiguration");
+        openApiResource.setFactoryMethodName("openApiResource");
+        beanFactory.registerBeanDefinition("openApiResource", openApiResource);
+        beanFactory.registerBeanDefinition("customerService",
+                BeanDefinitionBuilder.genericBeanDefinition(
+                        "com.example.CustomerManagementAPI.service.CustomerService").getBeanDefinition());
+
+        LazyInitializationConfig.lazyPackagesPostProcessor(new String[]{"org.springdoc."})
+                .postProcessBeanFactory(beanFactory);
+
+        assertTrue(beanFactory.getBeanDefinition("org.springdoc.core.configuration.SpringDocConfiguration").isLazyInit());
+        assertTrue(beanFactory.getBeanDefinition("openApiResource").isLazyInit());
+        assertFalse(beanFactory.getBeanDefinition("customerService").isLazyInit());
+    }
+}